@@ -0,0 +1,116 @@
+package com.ryanair.flights.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ryanair.flights.configuration.SearchProperties;
+import com.ryanair.flights.model.*;
+import com.ryanair.flights.validation.FlightServiceValidation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of a search over a synthetic network of 250 airports and 2,000 routes, with 3 months of schedules and
+ * 3 month search windows. Every invocation takes the next of a fixed set of queries that have connections. Run with
+ * the gc profiler, see the "jmh" Maven profile, to get the allocation rate next to the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmarks {
+
+    private static final int QUERIES = 64;
+
+    private final LocalDateTime departureDate = LocalDateTime.of(2019, 6, 10, 6, 0);
+    private final LocalDateTime arrivalDate = LocalDateTime.of(2019, 9, 10, 22, 0);
+
+    private RouteGraph routeGraph;
+    private RouteService routeService;
+    private ScheduleService scheduleService;
+    private FlightService flightService;
+    private ExecutorService executor;
+    private ObjectMapper objectMapper;
+
+    private final List<String[]> queries = new ArrayList<>();
+    private final List<MonthSchedule> departureMonths = new ArrayList<>();
+    private List<FlightResponse> responses;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SyntheticNetwork network = new SyntheticNetwork(250, 2000, YearMonth.of(2019, 6), 4, 42);
+        routeGraph = network.getRouteGraph();
+        routeService = new RouteService(network::getRoutes, meterRegistry);
+        scheduleService = new ScheduleService((departure, arrival, year, month) ->
+                network.getSchedule(departure, arrival, year, month), meterRegistry);
+
+        SearchProperties searchProperties = new SearchProperties();
+        searchProperties.setMaxLayover(Duration.ofHours(24));
+        executor = Executors.newFixedThreadPool(searchProperties.getBatchConcurrency());
+        flightService = new FlightService(routeService, scheduleService,
+                new FlightServiceValidation(searchProperties), executor, searchProperties, meterRegistry);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        Random random = new Random(7);
+        List<String> airports = network.getAirports();
+        while (queries.size() < QUERIES) {
+            String departure = airports.get(random.nextInt(airports.size()));
+            String arrival = airports.get(random.nextInt(airports.size()));
+            if (!departure.equals(arrival)
+                    && !routeService.getConnectionRoutes(departure, arrival, routeGraph).isEmpty()) {
+                queries.add(new String[]{departure, arrival});
+            }
+        }
+        for (Route route : network.getRoutes().subList(0, QUERIES)) {
+            network.getSchedule(route.getAirportFrom(), route.getAirportTo(), 2019, 6)
+                    .ifPresent(departureMonths::add);
+        }
+        responses = flightService.getConnectingFlights(queries.get(0)[0], queries.get(0)[1], departureDate,
+                arrivalDate, routeGraph);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private int nextIndex() {
+        next = (next + 1) % QUERIES;
+        return next;
+    }
+
+    @Benchmark
+    public List<ConnectionRoute> getConnectionRoutes() {
+        String[] query = queries.get(nextIndex());
+        return routeService.getConnectionRoutes(query[0], query[1], routeGraph);
+    }
+
+    @Benchmark
+    public List<FlightResponse> getConnectingFlights() throws Exception {
+        String[] query = queries.get(nextIndex());
+        return flightService.getConnectingFlights(query[0], query[1], departureDate, arrivalDate, routeGraph);
+    }
+
+    @Benchmark
+    public Optional<ScheduleView> filterNonValid() {
+        return scheduleService.filterNonValid(departureMonths.get(nextIndex() % departureMonths.size()),
+                departureDate, arrivalDate);
+    }
+
+    @Benchmark
+    public byte[] serializeFlightResponses() throws Exception {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+}
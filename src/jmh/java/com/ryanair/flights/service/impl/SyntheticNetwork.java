@@ -0,0 +1,101 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.model.AirportPair;
+import com.ryanair.flights.model.EpochMinutes;
+import com.ryanair.flights.model.MonthSchedule;
+import com.ryanair.flights.model.Route;
+import com.ryanair.flights.model.RouteGraph;
+
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Seeded random route network with schedules of realistic size. Airports are picked with a skew towards the first
+ * ones, so a few of them become hubs with many routes, like in the real network.
+ */
+class SyntheticNetwork {
+
+    private final List<String> airports = new ArrayList<>();
+    private final List<Route> routes = new ArrayList<>();
+    private final Map<AirportPair, Map<YearMonth, MonthSchedule>> schedules = new HashMap<>();
+    private final Random random;
+
+    /**
+     * @param airportCount number of airports.
+     * @param routeCount number of distinct routes, up to airportCount * (airportCount - 1).
+     * @param first month with schedules.
+     * @param months number of months with schedules, from the first one.
+     * @param seed of the random generator, the same seed builds the same network.
+     */
+    SyntheticNetwork(int airportCount, int routeCount, YearMonth first, int months, long seed) {
+        this.random = new Random(seed);
+
+        for (int i = 0; i < airportCount; i++) {
+            airports.add("" + (char) ('A' + i / 676) + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26));
+        }
+
+        Set<AirportPair> pairs = new LinkedHashSet<>();
+        while (pairs.size() < routeCount) {
+            String from = airports.get(skewed(airportCount));
+            String to = airports.get(skewed(airportCount));
+            if (!from.equals(to)) {
+                pairs.add(new AirportPair(from, to));
+            }
+        }
+
+        for (AirportPair pair : pairs) {
+            routes.add(new Route(pair.getFrom(), pair.getTo(), null, false, false, "RYANAIR", "GENERIC"));
+            Map<YearMonth, MonthSchedule> byMonth = new HashMap<>();
+            for (int m = 0; m < months; m++) {
+                YearMonth month = first.plusMonths(m);
+                byMonth.put(month, schedule(month, 1 + random.nextInt(3)));
+            }
+            schedules.put(pair, byMonth);
+        }
+    }
+
+    /**
+     * Builds the schedule of a month with the given number of flights every day, lasting from one to four hours.
+     */
+    private MonthSchedule schedule(YearMonth month, int flightsPerDay) {
+        int size = month.lengthOfMonth() * flightsPerDay;
+        int[] departures = new int[size];
+        int[] arrivals = new int[size];
+        int[] numbers = new int[size];
+
+        for (int day = 1, i = 0; day <= month.lengthOfMonth(); day++) {
+            for (int f = 0; f < flightsPerDay; f++, i++) {
+                int minuteOfDay = 6 * 60 + random.nextInt(16 * 60);
+                departures[i] = EpochMinutes.of(month.getYear(), month.getMonthValue(), day, minuteOfDay);
+                arrivals[i] = departures[i] + 60 + random.nextInt(3 * 60);
+                numbers[i] = 1000 + random.nextInt(9000);
+            }
+        }
+        return MonthSchedule.of(month.getYear(), month.getMonthValue(), departures, arrivals, numbers);
+    }
+
+    private int skewed(int bound) {
+        double r = random.nextDouble();
+        return (int) (bound * r * r);
+    }
+
+    List<String> getAirports() {
+        return airports;
+    }
+
+    List<Route> getRoutes() {
+        return routes;
+    }
+
+    RouteGraph getRouteGraph() {
+        return RouteGraph.of(routes);
+    }
+
+    /**
+     * @return the MonthSchedule of a route and month, empty when the network has none.
+     */
+    Optional<MonthSchedule> getSchedule(String departure, String arrival, int year, int month) {
+        return Optional.ofNullable(schedules.getOrDefault(new AirportPair(departure, arrival), Collections.emptyMap())
+                .get(YearMonth.of(year, month)));
+    }
+}
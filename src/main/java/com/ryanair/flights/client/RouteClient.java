@@ -4,6 +4,7 @@ import com.ryanair.flights.exception.RestClientException;
 import com.ryanair.flights.model.Route;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface RouteClient {
 
@@ -13,4 +14,19 @@ public interface RouteClient {
      * @throws RestClientException
      */
     List<Route> getRoutes() throws RestClientException;
+
+    /**
+     * Fetchs a List of all Routes without blocking the caller. By default it runs getRoutes in the calling thread, so
+     * implementations backed by a blocking stack should override it.
+     * @return a CompletableFuture of a List of Routes, completed with a RestClientException on failure.
+     */
+    default CompletableFuture<List<Route>> getRoutesAsync() {
+        CompletableFuture<List<Route>> future = new CompletableFuture<>();
+        try {
+            future.complete(getRoutes());
+        } catch (RestClientException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
 }
@@ -1,9 +1,10 @@
 package com.ryanair.flights.client;
 
 import com.ryanair.flights.exception.RestClientException;
-import com.ryanair.flights.model.Schedule;
+import com.ryanair.flights.model.MonthSchedule;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface ScheduleClient {
 
@@ -13,9 +14,30 @@ public interface ScheduleClient {
      * @param arrival airport IATA code.
      * @param year expressed as an Integer.
      * @param month expressed as an Integer.
-     * @return Optional of a Schedule.
+     * @return Optional of an immutable MonthSchedule.
      * @throws RestClientException when there is an error during REST call.
      */
-    Optional<Schedule> getSchedule(String departure, String arrival, Integer year, Integer month)
+    Optional<MonthSchedule> getSchedule(String departure, String arrival, Integer year, Integer month)
         throws RestClientException;
+
+    /**
+     * Fetchs a Schedule without blocking the caller. By default it runs getSchedule in the calling thread, so
+     * implementations backed by a blocking stack should override it.
+     * @param departure airport IATA code.
+     * @param arrival airport IATA code.
+     * @param year expressed as an Integer.
+     * @param month expressed as an Integer.
+     * @return a CompletableFuture of an Optional MonthSchedule, completed with a RestClientException on failure.
+     */
+    default CompletableFuture<Optional<MonthSchedule>> getScheduleAsync(String departure, String arrival,
+        Integer year, Integer month) {
+
+        CompletableFuture<Optional<MonthSchedule>> future = new CompletableFuture<>();
+        try {
+            future.complete(getSchedule(departure, arrival, year, month));
+        } catch (RestClientException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
 }
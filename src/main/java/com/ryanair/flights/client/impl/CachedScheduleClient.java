@@ -0,0 +1,159 @@
+package com.ryanair.flights.client.impl;
+
+import com.ryanair.flights.client.ScheduleClient;
+import com.ryanair.flights.exception.RestClientException;
+import com.ryanair.flights.model.MonthSchedule;
+import com.ryanair.flights.model.ScheduleKey;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScheduleClient backed by the "schedule" cache. Only cache misses reach the upstream ScheduleClient, and concurrent
+ * misses for the same schedule share a single call.
+ */
+@Primary
+@Component
+public class CachedScheduleClient implements ScheduleClient {
+
+    private final ScheduleClient upstreamScheduleClient;
+    private final Cache cache;
+    private final SingleFlight<ScheduleKey, Optional<MonthSchedule>> singleFlight = new SingleFlight<>();
+    private final Timer loadTimer;
+    private final Timer hitTimer;
+    private final Timer missTimer;
+    private final Timer clientErrorTimer;
+    private final Timer serverErrorTimer;
+    private final Timer errorTimer;
+
+    @Autowired
+    public CachedScheduleClient(@Qualifier("upstream") ScheduleClient upstreamScheduleClient,
+                                CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.upstreamScheduleClient = upstreamScheduleClient;
+        this.cache = cacheManager.getCache("schedule");
+        this.loadTimer = Timer.builder("cache.schedule.load")
+                .description("Time spent loading a schedule missing from the cache")
+                .register(meterRegistry);
+        this.hitTimer = fetchTimer(meterRegistry, "hit");
+        this.missTimer = fetchTimer(meterRegistry, "miss");
+        this.clientErrorTimer = fetchTimer(meterRegistry, "4xx");
+        this.serverErrorTimer = fetchTimer(meterRegistry, "5xx");
+        this.errorTimer = fetchTimer(meterRegistry, "error");
+        FunctionCounter.builder("cache.schedule.coalesced", singleFlight, SingleFlight::getCoalesced)
+                .description("Schedule misses served by an identical call already in flight")
+                .register(meterRegistry);
+    }
+
+    private static Timer fetchTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("flight.schedule.fetch")
+                .description("Time spent getting the schedule of a month, by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Fetchs a Schedule from the cache, or via REST when it is not cached.
+     * @param departure airport IATA code.
+     * @param arrival airport IATA code.
+     * @param year expressed as an Integer.
+     * @param month expressed as an Integer.
+     * @return Optional of an immutable MonthSchedule.
+     * @throws RestClientException when there is an error during REST call.
+     */
+    @Override
+    public Optional<MonthSchedule> getSchedule(String departure, String arrival, Integer year, Integer month)
+        throws RestClientException {
+
+        return Futures.await(getScheduleAsync(departure, arrival, year, month));
+    }
+
+    /**
+     * Fetchs a Schedule from the cache, or from the upstream ScheduleClient without blocking when it is not cached.
+     * @param departure airport IATA code.
+     * @param arrival airport IATA code.
+     * @param year expressed as an Integer.
+     * @param month expressed as an Integer.
+     * @return a CompletableFuture of an Optional MonthSchedule.
+     */
+    @Override
+    public CompletableFuture<Optional<MonthSchedule>> getScheduleAsync(String departure, String arrival,
+        Integer year, Integer month) {
+
+        long start = System.nanoTime();
+        ScheduleKey key = new ScheduleKey(departure, arrival, year, month);
+        Cache.ValueWrapper cached = lookup(key, true);
+        if (null != cached) {
+            hitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return CompletableFuture.completedFuture(Optional.ofNullable((MonthSchedule) cached.get()));
+        }
+        return singleFlight.execute(key, () -> load(key))
+                .whenComplete((schedule, error) -> outcomeTimer(schedule, error)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Looks a schedule up without loading it, so a miss is counted as a miss rather than a failed load and is left to
+     * the call in flight. A second look up of the same request is not recorded, so it is not counted twice.
+     */
+    @SuppressWarnings("unchecked")
+    private Cache.ValueWrapper lookup(ScheduleKey key, boolean recordStats) {
+        Object nativeCache = cache.getNativeCache();
+        if (!(nativeCache instanceof com.github.benmanes.caffeine.cache.Cache)) {
+            return cache.get(key);
+        }
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> caffeine =
+                (com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache;
+        Object value = recordStats ? caffeine.getIfPresent(key) : caffeine.asMap().get(key);
+        return null == value ? null : new SimpleValueWrapper(NullValue.INSTANCE.equals(value) ? null : value);
+    }
+
+    /**
+     * A missing schedule is what the upstream clients return for 4xx responses, failures carrying a 5xx status are
+     * told apart from any other error.
+     */
+    private Timer outcomeTimer(Optional<MonthSchedule> schedule, Throwable error) {
+        if (null == error) {
+            return schedule.isPresent() ? missTimer : clientErrorTimer;
+        }
+        Throwable cause = error instanceof CompletionException && null != error.getCause() ? error.getCause() : error;
+        if (cause instanceof RestClientException && null != ((RestClientException) cause).getHttpStatus()
+                && ((RestClientException) cause).getHttpStatus().is5xxServerError()) {
+            return serverErrorTimer;
+        }
+        return errorTimer;
+    }
+
+    /**
+     * Fetches a Schedule from upstream and caches it before the call in flight is released. A caller that missed the
+     * cache just before another call cached the Schedule and left the flight finds it here, so it does not call
+     * upstream again.
+     */
+    private CompletableFuture<Optional<MonthSchedule>> load(ScheduleKey key) {
+        Cache.ValueWrapper cached = lookup(key, false);
+        if (null != cached) {
+            return CompletableFuture.completedFuture(Optional.ofNullable((MonthSchedule) cached.get()));
+        }
+        long start = System.nanoTime();
+
+        return upstreamScheduleClient.getScheduleAsync(key.getDeparture(), key.getArrival(), key.getYear(),
+                key.getMonth())
+                .thenApply(schedule -> {
+                    cache.put(key, schedule.orElse(null));
+                    return schedule;
+                })
+                .whenComplete((schedule, error) -> loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+}
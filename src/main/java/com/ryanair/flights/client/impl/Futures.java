@@ -0,0 +1,72 @@
+package com.ryanair.flights.client.impl;
+
+import com.ryanair.flights.exception.RestClientException;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Bridges between the blocking and the CompletableFuture based methods of the clients.
+ */
+final class Futures {
+
+    private Futures() {}
+
+    /**
+     * A blocking call to an external service.
+     */
+    @FunctionalInterface
+    interface Call<V> {
+        V call() throws RestClientException;
+    }
+
+    /**
+     * Waits for a CompletableFuture, rethrowing the RestClientException it may have been completed with.
+     * @param future to wait for.
+     * @return the value of the future.
+     * @throws RestClientException when the future failed or waiting was interrupted.
+     */
+    static <V> V await(CompletableFuture<V> future) throws RestClientException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RestClientException("Interrupted while waiting for a REST call.", e,
+                    HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (ExecutionException e) {
+            throw toRestClientException(e.getCause());
+        }
+    }
+
+    /**
+     * Wraps a blocking call so it can be run by CompletableFuture.supplyAsync.
+     * @param call to be wrapped.
+     * @return a Supplier that throws the RestClientException of the call wrapped in a CompletionException.
+     */
+    static <V> Supplier<V> unchecked(Call<V> call) {
+        return () -> {
+            try {
+                return call.call();
+            } catch (RestClientException e) {
+                throw new CompletionException(e);
+            }
+        };
+    }
+
+    private static RestClientException toRestClientException(Throwable cause) {
+        if (cause instanceof CompletionException && null != cause.getCause()) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RestClientException) {
+            return (RestClientException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new RestClientException(cause.getMessage(), cause, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
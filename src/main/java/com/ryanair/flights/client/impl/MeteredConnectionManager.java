@@ -0,0 +1,74 @@
+package com.ryanair.flights.client.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Pooling connection manager of the RestTemplate clients that publishes the pool state and the time spent waiting
+ * for a connection lease, under "http.client.pool.*".
+ */
+public class MeteredConnectionManager extends PoolingHttpClientConnectionManager implements MeterBinder {
+
+    private Timer acquireTimer;
+
+    public MeteredConnectionManager(long validateAfterInactivityMs) {
+        super();
+        setValidateAfterInactivity((int) validateAfterInactivityMs);
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        ConnectionRequest request = super.requestConnection(route, state);
+
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+                throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+
+                long start = System.nanoTime();
+                try {
+                    return request.get(timeout, timeUnit);
+                } finally {
+                    if (null != acquireTimer) {
+                        acquireTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        gauge(registry, "http.client.pool.leased", "Connections in use", m -> m.getTotalStats().getLeased());
+        gauge(registry, "http.client.pool.available", "Idle connections ready to be reused",
+                m -> m.getTotalStats().getAvailable());
+        gauge(registry, "http.client.pool.pending", "Requests waiting for a connection",
+                m -> m.getTotalStats().getPending());
+        gauge(registry, "http.client.pool.max", "Maximum number of connections", m -> m.getTotalStats().getMax());
+
+        acquireTimer = Timer.builder("http.client.pool.acquire")
+                .description("Time spent waiting for a connection lease")
+                .register(registry);
+    }
+
+    private void gauge(MeterRegistry registry, String name, String description,
+                       ToDoubleFunction<MeteredConnectionManager> value) {
+        Gauge.builder(name, this, value).description(description).register(registry);
+    }
+}
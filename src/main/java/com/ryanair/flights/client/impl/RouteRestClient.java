@@ -5,50 +5,57 @@ import com.ryanair.flights.exception.RestClientException;
 import com.ryanair.flights.model.Route;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Component
 @Slf4j
+@ConditionalOnProperty(name = "client.mode", havingValue = "blocking", matchIfMissing = true)
 public class RouteRestClient implements RouteClient {
 
     private RestTemplate restTemplate;
+    private ExecutorService ioExecutor;
 
     @Value("${client.route.url}")
     private String getRoutesUrl;
 
     @Autowired
-    public RouteRestClient(RestTemplate restTemplate) {
+    public RouteRestClient(RestTemplate restTemplate,
+        @Qualifier("ioExecutor") ExecutorService ioExecutor) {
         this.restTemplate = restTemplate;
+        this.ioExecutor = ioExecutor;
     }
 
     /**
-     * Fetchs a List of all Routes via REST using the configured URL.
+     * Fetchs a List of all Routes via REST using the configured URL. The body is parsed as it is read, keeping only
+     * the routes served directly by RYANAIR.
      * @return a List of Routes.
      * @throws RestClientException
      */
     @Override
     public List<Route> getRoutes() throws RestClientException {
         String logHeader = "RestTemplate.getRoutes. Url: " + getRoutesUrl;
-        log.info(logHeader + " Starting request.");
+        log.info("{} Starting request.", logHeader);
 
         try {
-            ResponseEntity<List<Route>> response = restTemplate.exchange(
+            return restTemplate.execute(
                 getRoutesUrl,
                 HttpMethod.GET,
-                null,
-                new ParameterizedTypeReference<List<Route>>(){});
-
-            return response.getBody();
+                request -> request.getHeaders().setAccept(Collections.singletonList(MediaType.APPLICATION_JSON)),
+                response -> UpstreamParser.parseRoutes(response.getBody()));
         } catch (HttpClientErrorException ex) {
             String errorMsg = logHeader + " Client error status code: " + ex.getStatusText() + ". " + ex.getMessage();
             log.error(errorMsg, ex);
@@ -65,4 +72,13 @@ public class RouteRestClient implements RouteClient {
             throw new RestClientException(errorMsg, ex, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    /**
+     * Fetchs all Routes on the I/O executor, as RestTemplate blocks the thread for the whole call.
+     * @return a CompletableFuture of a List of Routes, completed with a RestClientException on failure.
+     */
+    @Override
+    public CompletableFuture<List<Route>> getRoutesAsync() {
+        return CompletableFuture.supplyAsync(Futures.unchecked(this::getRoutes), ioExecutor);
+    }
 }
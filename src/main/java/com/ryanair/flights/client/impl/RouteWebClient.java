@@ -0,0 +1,89 @@
+package com.ryanair.flights.client.impl;
+
+import com.ryanair.flights.client.RouteClient;
+import com.ryanair.flights.exception.RestClientException;
+import com.ryanair.flights.model.Route;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non blocking RouteClient, selected with "client.mode=async". No thread is held while a call is in flight.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "client.mode", havingValue = "async")
+public class RouteWebClient implements RouteClient {
+
+    private WebClient webClient;
+
+    @Value("${client.route.url}")
+    private String getRoutesUrl;
+
+    @Autowired
+    public RouteWebClient(WebClient.Builder webClientBuilder) {
+        this.webClient = webClientBuilder.build();
+    }
+
+    /**
+     * Fetchs a List of all Routes via REST using the configured URL.
+     * @return a List of Routes.
+     * @throws RestClientException
+     */
+    @Override
+    public List<Route> getRoutes() throws RestClientException {
+        return Futures.await(getRoutesAsync());
+    }
+
+    /**
+     * Fetchs a List of all Routes via REST without blocking the caller. The body is parsed once received, keeping only
+     * the routes served directly by RYANAIR.
+     * @return a CompletableFuture of a List of Routes, completed with a RestClientException on failure.
+     */
+    @Override
+    public CompletableFuture<List<Route>> getRoutesAsync() {
+        String logHeader = "RouteWebClient.getRoutesAsync. Url: " + getRoutesUrl;
+        log.info("{} Starting request.", logHeader);
+
+        return webClient.get()
+                .uri(getRoutesUrl)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .as(DataBufferUtils::join)
+                .map(body -> {
+                    try {
+                        return UpstreamParser.parseRoutes(body.asInputStream(true));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .defaultIfEmpty(Collections.emptyList())
+                .onErrorMap(ex -> {
+                    if (ex instanceof WebClientResponseException) {
+                        WebClientResponseException responseEx = (WebClientResponseException) ex;
+                        String errorMsg = logHeader + (responseEx.getStatusCode().is4xxClientError()
+                                ? " Client error status code: " : " Server error status code: ")
+                                + responseEx.getStatusText() + ". " + responseEx.getMessage();
+                        log.error(errorMsg, ex);
+                        return new RestClientException(errorMsg, ex, responseEx.getStatusCode());
+                    }
+                    String errorMsg = logHeader + " Unknown error. " + ex.getMessage();
+                    log.error(errorMsg, ex);
+                    return new RestClientException(errorMsg, ex, HttpStatus.INTERNAL_SERVER_ERROR);
+                })
+                .toFuture();
+    }
+}
@@ -0,0 +1,40 @@
+package com.ryanair.flights.client.impl;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.ryanair.flights.client.ScheduleClient;
+import com.ryanair.flights.model.ScheduleKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.support.NullValue;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads entries of the "schedule" cache from upstream, which Caffeine uses to refresh them in the background once they
+ * are older than the refresh-ahead interval. Lookups never go through it: CachedScheduleClient fetches misses itself,
+ * so that they are coalesced and their errors reach the caller.
+ */
+@Component
+public class ScheduleCacheLoader implements CacheLoader<Object, Object> {
+
+    private final ScheduleClient upstreamScheduleClient;
+
+    @Autowired
+    public ScheduleCacheLoader(@Qualifier("upstream") ScheduleClient upstreamScheduleClient) {
+        this.upstreamScheduleClient = upstreamScheduleClient;
+    }
+
+    /**
+     * Fetches the Schedule of a key, for a refresh or a load. If fetching fails a refreshed entry is kept.
+     * @param key a ScheduleKey.
+     * @return the MonthSchedule, or NullValue when it does not exist.
+     * @throws Exception when fetching fails.
+     */
+    @Override
+    public Object load(Object key) throws Exception {
+        ScheduleKey scheduleKey = (ScheduleKey) key;
+        return upstreamScheduleClient.getSchedule(scheduleKey.getDeparture(), scheduleKey.getArrival(),
+                scheduleKey.getYear(), scheduleKey.getMonth())
+                .<Object>map(s -> s)
+                .orElse(NullValue.INSTANCE);
+    }
+}
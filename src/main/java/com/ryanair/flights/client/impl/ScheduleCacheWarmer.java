@@ -0,0 +1,109 @@
+package com.ryanair.flights.client.impl;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import com.ryanair.flights.client.ScheduleClient;
+import com.ryanair.flights.configuration.ScheduleCacheProperties;
+import com.ryanair.flights.exception.RestClientException;
+import com.ryanair.flights.model.ScheduleKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the most frequently used schedules warm. Access frequency is the one Caffeine already tracks for eviction, and
+ * the hottest entries about to go stale, by refreshAfterWrite or expireAfterWrite whichever comes first, are fetched
+ * again on the io executor and replaced in place, so popular months never go cold all at once. Entries already due
+ * for refresh are left to Caffeine, which reloads them on their next read, so no schedule is fetched twice.
+ */
+@Slf4j
+@Component
+public class ScheduleCacheWarmer {
+
+    private final CacheManager cacheManager;
+    private final ScheduleClient upstreamScheduleClient;
+    private final Executor ioExecutor;
+    private final ScheduleCacheProperties.Warmer properties;
+    private CompletableFuture<Void> inFlight = CompletableFuture.completedFuture(null);
+
+    @Autowired
+    public ScheduleCacheWarmer(CacheManager cacheManager,
+                               @Qualifier("upstream") ScheduleClient upstreamScheduleClient,
+                               @Qualifier("ioExecutor") Executor ioExecutor,
+                               ScheduleCacheProperties scheduleCacheProperties) {
+        this.cacheManager = cacheManager;
+        this.upstreamScheduleClient = upstreamScheduleClient;
+        this.ioExecutor = ioExecutor;
+        this.properties = scheduleCacheProperties.getWarmer();
+    }
+
+    /**
+     * Fetches again, on the io executor, the hottest schedules that will go stale within the configured lead time.
+     * The scheduler thread only picks the schedules, and a round is skipped while the previous one is still fetching.
+     * @return the number of schedules sent to be warmed.
+     */
+    @Scheduled(fixedDelayString = "${flight.cache.schedule.warmer.interval-ms:60000}",
+            initialDelayString = "${flight.cache.schedule.warmer.interval-ms:60000}")
+    public int warmHottestSchedules() {
+        Cache cache = cacheManager.getCache("schedule");
+        if (!(cache instanceof CaffeineCache)) {
+            return 0;
+        }
+
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = ((CaffeineCache) cache).getNativeCache();
+        Optional<Policy.Eviction<Object, Object>> eviction = nativeCache.policy().eviction();
+        Optional<Policy.Expiration<Object, Object>> expiration = nativeCache.policy().expireAfterWrite();
+        if (!eviction.isPresent() || !expiration.isPresent()) {
+            return 0;
+        }
+
+        if (!inFlight.isDone()) {
+            log.info("ScheduleCacheWarmer: previous round still warming, skipping this one.");
+            return 0;
+        }
+
+        long staleAfter = Math.min(expiration.get().getExpiresAfter(TimeUnit.NANOSECONDS),
+                nativeCache.policy().refreshAfterWrite()
+                        .map(refresh -> refresh.getExpiresAfter(TimeUnit.NANOSECONDS))
+                        .orElse(Long.MAX_VALUE));
+        long warmAfter = staleAfter - properties.getLead().toNanos();
+        List<CompletableFuture<Void>> warming = new ArrayList<>();
+
+        for (Object key : eviction.get().hottest(properties.getTopN()).keySet()) {
+            OptionalLong age = expiration.get().ageOf(key, TimeUnit.NANOSECONDS);
+            if (!(key instanceof ScheduleKey) || !age.isPresent() || age.getAsLong() < warmAfter
+                    || age.getAsLong() >= staleAfter) {
+                continue;
+            }
+
+            warming.add(CompletableFuture.runAsync(() -> warm(cache, (ScheduleKey) key), ioExecutor));
+        }
+
+        if (!warming.isEmpty()) {
+            inFlight = CompletableFuture.allOf(warming.toArray(new CompletableFuture[0]));
+            log.info("ScheduleCacheWarmer: " + warming.size() + " schedules sent to be warmed.");
+        }
+        return warming.size();
+    }
+
+    private void warm(Cache cache, ScheduleKey scheduleKey) {
+        try {
+            cache.put(scheduleKey, upstreamScheduleClient.getSchedule(scheduleKey.getDeparture(),
+                    scheduleKey.getArrival(), scheduleKey.getYear(), scheduleKey.getMonth()).orElse(null));
+        } catch (RestClientException e) {
+            log.warn("ScheduleCacheWarmer: keeping cached schedule for " + scheduleKey + ". " + e.getMessage());
+        }
+    }
+}
@@ -2,78 +2,100 @@ package com.ryanair.flights.client.impl;
 
 import com.ryanair.flights.client.ScheduleClient;
 import com.ryanair.flights.exception.RestClientException;
-import com.ryanair.flights.model.Schedule;
+import com.ryanair.flights.model.MonthSchedule;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Component
+@Qualifier("upstream")
 @Slf4j
+@ConditionalOnProperty(name = "client.mode", havingValue = "blocking", matchIfMissing = true)
 public class ScheduleRestClient implements ScheduleClient {
 
+    private static final String LOG_HEADER = "ScheduleRestClient.getSchedule departure. Url: ";
+
     private RestTemplate restTemplate;
+    private ExecutorService ioExecutor;
 
     @Value("${client.schedule.url}")
     private String getScheduleBaseUrl;
 
     @Autowired
-    public ScheduleRestClient(RestTemplate restTemplate) {
+    public ScheduleRestClient(RestTemplate restTemplate,
+        @Qualifier("ioExecutor") ExecutorService ioExecutor) {
         this.restTemplate = restTemplate;
+        this.ioExecutor = ioExecutor;
     }
 
     /**
-     * Fetchs a Schedul via REST using the configured URL and the given parameters.
+     * Fetchs a Schedul via REST using the configured URL and the given parameters. The body is parsed as it is read,
+     * straight into the MonthSchedule.
      * @param departure airport IATA code.
      * @param arrival airport IATA code.
      * @param year expressed as an Integer.
      * @param month expressed as an Integer.
-     * @return Optional of a Schedule.
+     * @return Optional of an immutable MonthSchedule, safe to be shared through the cache.
      * @throws RestClientException when there is an error during REST call.
      */
     @Override
-    @Cacheable("schedule")
-    public Optional<Schedule> getSchedule(String departure, String arrival, Integer year, Integer month)
+    public Optional<MonthSchedule> getSchedule(String departure, String arrival, Integer year, Integer month)
         throws RestClientException {
 
         String url = getScheduleBaseUrl + departure + "/" + arrival + "/years/" + year + "/months/" + month;
-        String logHeader = "ScheduleRestClient.getSchedule departure. Url: " + url;
-
-        log.info(logHeader + " Starting request.");
+        log.debug(LOG_HEADER + "{} Starting request.", url);
 
         try {
-            ResponseEntity<Schedule> response = restTemplate.exchange(
+            return Optional.ofNullable(restTemplate.execute(
                 url,
                 HttpMethod.GET,
-                null,
-                new ParameterizedTypeReference<Schedule>(){});
-
-            return Optional.of(response.getBody());
+                request -> request.getHeaders().setAccept(Collections.singletonList(MediaType.APPLICATION_JSON)),
+                response -> UpstreamParser.parseSchedule(response.getBody(), year, month)));
 
         } catch (HttpClientErrorException ex) {
-            String errorMsg = logHeader + " Client error status code: " + ex.getStatusText() + ". " + ex.getMessage();
-            log.warn(errorMsg, ex);
+            log.warn(LOG_HEADER + "{} Client error status code: {}. {}", url, ex.getStatusText(), ex.getMessage(), ex);
             return Optional.empty();
 
         } catch (HttpServerErrorException ex) {
-            String errorMsg = logHeader + " Server error status code: " + ex.getStatusText() + ". " + ex.getMessage();
+            String errorMsg = LOG_HEADER + url + " Server error status code: " + ex.getStatusText() + ". "
+                    + ex.getMessage();
             log.error(errorMsg, ex);
             throw new RestClientException(errorMsg, ex, ex.getStatusCode());
 
         } catch(org.springframework.web.client.RestClientException ex) {
-            String errorMsg = logHeader + " Unknown error. " + ex.getMessage();
+            String errorMsg = LOG_HEADER + url + " Unknown error. " + ex.getMessage();
             log.error(errorMsg, ex);
             throw new RestClientException(errorMsg, ex, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    /**
+     * Fetchs a Schedule on the I/O executor, as RestTemplate blocks the thread for the whole call.
+     * @param departure airport IATA code.
+     * @param arrival airport IATA code.
+     * @param year expressed as an Integer.
+     * @param month expressed as an Integer.
+     * @return a CompletableFuture of an Optional MonthSchedule, completed with a RestClientException on failure.
+     */
+    @Override
+    public CompletableFuture<Optional<MonthSchedule>> getScheduleAsync(String departure, String arrival,
+        Integer year, Integer month) {
+
+        return CompletableFuture.supplyAsync(
+                Futures.unchecked(() -> getSchedule(departure, arrival, year, month)), ioExecutor);
+    }
 }
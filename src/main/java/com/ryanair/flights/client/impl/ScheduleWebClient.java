@@ -0,0 +1,109 @@
+package com.ryanair.flights.client.impl;
+
+import com.ryanair.flights.client.ScheduleClient;
+import com.ryanair.flights.exception.RestClientException;
+import com.ryanair.flights.model.MonthSchedule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non blocking ScheduleClient, selected with "client.mode=async". No thread is held while a call is in flight.
+ */
+@Component
+@Qualifier("upstream")
+@Slf4j
+@ConditionalOnProperty(name = "client.mode", havingValue = "async")
+public class ScheduleWebClient implements ScheduleClient {
+
+    private static final String LOG_HEADER = "ScheduleWebClient.getScheduleAsync departure. Url: ";
+
+    private WebClient webClient;
+
+    @Value("${client.schedule.url}")
+    private String getScheduleBaseUrl;
+
+    @Autowired
+    public ScheduleWebClient(WebClient.Builder webClientBuilder) {
+        this.webClient = webClientBuilder.build();
+    }
+
+    /**
+     * Fetchs a Schedul via REST using the configured URL and the given parameters.
+     * @param departure airport IATA code.
+     * @param arrival airport IATA code.
+     * @param year expressed as an Integer.
+     * @param month expressed as an Integer.
+     * @return Optional of an immutable MonthSchedule.
+     * @throws RestClientException when there is an error during REST call.
+     */
+    @Override
+    public Optional<MonthSchedule> getSchedule(String departure, String arrival, Integer year, Integer month)
+        throws RestClientException {
+
+        return Futures.await(getScheduleAsync(departure, arrival, year, month));
+    }
+
+    /**
+     * Fetchs a Schedule via REST without blocking the caller. The body is parsed once received, straight into the
+     * MonthSchedule.
+     * @param departure airport IATA code.
+     * @param arrival airport IATA code.
+     * @param year expressed as an Integer.
+     * @param month expressed as an Integer.
+     * @return a CompletableFuture of an Optional MonthSchedule, empty for client errors and completed with a
+     * RestClientException for any other error.
+     */
+    @Override
+    public CompletableFuture<Optional<MonthSchedule>> getScheduleAsync(String departure, String arrival,
+        Integer year, Integer month) {
+
+        String url = getScheduleBaseUrl + departure + "/" + arrival + "/years/" + year + "/months/" + month;
+        log.debug(LOG_HEADER + "{} Starting request.", url);
+
+        return webClient.get()
+                .uri(url)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .as(DataBufferUtils::join)
+                .map(body -> {
+                    try {
+                        return Optional.of(UpstreamParser.parseSchedule(body.asInputStream(true), year, month));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .defaultIfEmpty(Optional.empty())
+                .onErrorResume(WebClientResponseException.class, ex -> {
+                    if (ex.getStatusCode().is4xxClientError()) {
+                        log.warn(LOG_HEADER + "{} Client error status code: {}. {}", url, ex.getStatusText(),
+                                ex.getMessage(), ex);
+                        return Mono.just(Optional.empty());
+                    }
+                    String errorMsg = LOG_HEADER + url + " Server error status code: " + ex.getStatusText() + ". "
+                            + ex.getMessage();
+                    log.error(errorMsg, ex);
+                    return Mono.error(new RestClientException(errorMsg, ex, ex.getStatusCode()));
+                })
+                .onErrorMap(ex -> !(ex instanceof RestClientException), ex -> {
+                    String errorMsg = LOG_HEADER + url + " Unknown error. " + ex.getMessage();
+                    log.error(errorMsg, ex);
+                    return new RestClientException(errorMsg, ex, HttpStatus.INTERNAL_SERVER_ERROR);
+                })
+                .toFuture();
+    }
+}
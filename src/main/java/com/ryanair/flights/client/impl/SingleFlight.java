@@ -0,0 +1,57 @@
+package com.ryanair.flights.client.impl;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: while a call is in flight, callers asking for the same key get its
+ * CompletableFuture and share its result or its failure instead of starting their own.
+ * @param <K> type of the key identifying a call.
+ * @param <V> type of the result of a call.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Starts the given call, unless a call for the same key is already in flight, in which case that one is returned.
+     * @param key identifying the call.
+     * @param call starting the call.
+     * @return a CompletableFuture of the result of the call.
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+
+        if (null != existing) {
+            coalesced.incrementAndGet();
+            return existing;
+        }
+
+        try {
+            call.get().whenComplete((value, error) -> {
+                inFlight.remove(key, created);
+                if (null != error) {
+                    created.completeExceptionally(error);
+                } else {
+                    created.complete(value);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    /**
+     * @return how many calls were served by another call in flight since startup.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+}
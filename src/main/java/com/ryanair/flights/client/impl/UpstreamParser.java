@@ -0,0 +1,270 @@
+package com.ryanair.flights.client.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.ryanair.flights.model.EpochMinutes;
+import com.ryanair.flights.model.MonthSchedule;
+import com.ryanair.flights.model.Route;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming parser of the upstream payloads. It reads the body token by token and builds the internal representation
+ * directly: routes are filtered while parsing, so only the kept ones become Route objects, and schedule times and
+ * flight numbers are read from the parser buffer straight into the int columns of a MonthSchedule, with no
+ * intermediate Schedule, Day, Flight or String.
+ */
+final class UpstreamParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private UpstreamParser() {
+    }
+
+    /**
+     * Parses a routes payload, keeping only the routes served directly by RYANAIR.
+     * @param body JSON array of routes.
+     * @return a List of Route that can be empty.
+     * @throws IOException when the body can not be read or is not valid.
+     */
+    static List<Route> parseRoutes(InputStream body) throws IOException {
+        List<Route> routes = new ArrayList<>();
+
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (null == token) {
+                return routes;
+            }
+            expect(parser, token, JsonToken.START_ARRAY);
+
+            while (JsonToken.START_OBJECT == (token = parser.nextToken())) {
+                String airportFrom = null;
+                String airportTo = null;
+                String connectingAirport = null;
+                Boolean newRoute = null;
+                Boolean seasonalRoute = null;
+                String operator = null;
+                String group = null;
+
+                while (JsonToken.FIELD_NAME == parser.nextToken()) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "airportFrom":
+                            airportFrom = parser.getValueAsString();
+                            break;
+                        case "airportTo":
+                            airportTo = parser.getValueAsString();
+                            break;
+                        case "connectingAirport":
+                            connectingAirport = parser.getValueAsString();
+                            break;
+                        case "newRoute":
+                            newRoute = readBoolean(parser);
+                            break;
+                        case "seasonalRoute":
+                            seasonalRoute = readBoolean(parser);
+                            break;
+                        case "operator":
+                            operator = parser.getValueAsString();
+                            break;
+                        case "group":
+                            group = parser.getValueAsString();
+                            break;
+                        default:
+                            parser.skipChildren();
+                    }
+                }
+                if (Route.isDirectRyanair(connectingAirport, operator)) {
+                    routes.add(new Route(airportFrom, airportTo, connectingAirport, newRoute, seasonalRoute, operator,
+                            group));
+                }
+            }
+            expect(parser, token, JsonToken.END_ARRAY);
+        }
+        return routes;
+    }
+
+    /**
+     * Parses a schedule payload of a month. Arrivals are on the day of the departure, as the payload gives no arrival
+     * day.
+     * @param body JSON schedule, with its days and their flights.
+     * @param year of the schedule, as it is not part of the payload.
+     * @param month of the schedule.
+     * @return a MonthSchedule, empty when the body is.
+     * @throws IOException when the body can not be read or is not valid.
+     */
+    static MonthSchedule parseSchedule(InputStream body, int year, int month) throws IOException {
+        Columns columns = new Columns();
+
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (null == token) {
+                return MonthSchedule.empty(year, month);
+            }
+            expect(parser, token, JsonToken.START_OBJECT);
+
+            while (JsonToken.FIELD_NAME == parser.nextToken()) {
+                String field = parser.getCurrentName();
+                token = parser.nextToken();
+                if ("days".equals(field) && JsonToken.START_ARRAY == token) {
+                    while (JsonToken.START_OBJECT == parser.nextToken()) {
+                        parseDay(parser, year, month, columns);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return columns.toMonthSchedule(year, month);
+    }
+
+    /**
+     * Parses the flights of a day as minutes of the day, and moves them to the day once it is known, as the day may
+     * come after the flights.
+     */
+    private static void parseDay(JsonParser parser, int year, int month, Columns columns) throws IOException {
+        int first = columns.size;
+        int day = -1;
+
+        while (JsonToken.FIELD_NAME == parser.nextToken()) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("day".equals(field)) {
+                day = parser.getValueAsInt(-1);
+            } else if ("flights".equals(field) && JsonToken.START_ARRAY == token) {
+                while (JsonToken.START_OBJECT == parser.nextToken()) {
+                    parseFlight(parser, columns);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (day < 1) {
+            throw new JsonParseException(parser, "Schedule day is missing or not valid.");
+        }
+
+        int midnight = EpochMinutes.of(year, month, day, 0);
+        for (int i = first; i < columns.size; i++) {
+            columns.departures[i] += midnight;
+            columns.arrivals[i] += midnight;
+        }
+    }
+
+    private static void parseFlight(JsonParser parser, Columns columns) throws IOException {
+        int number = 0;
+        int departure = -1;
+        int arrival = -1;
+
+        while (JsonToken.FIELD_NAME == parser.nextToken()) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "number":
+                    number = JsonToken.VALUE_NUMBER_INT == token ? parser.getIntValue()
+                            : JsonToken.VALUE_STRING == token ? readNumber(parser) : 0;
+                    break;
+                case "departureTime":
+                    departure = readMinuteOfDay(parser);
+                    break;
+                case "arrivalTime":
+                    arrival = readMinuteOfDay(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        if (departure < 0 || arrival < 0) {
+            throw new JsonParseException(parser, "Flight departure or arrival time is missing.");
+        }
+        columns.add(departure, arrival, number);
+    }
+
+    /**
+     * Reads an "HH:mm" time from the parser buffer, without building a String.
+     */
+    private static int readMinuteOfDay(JsonParser parser) throws IOException {
+        if (JsonToken.VALUE_STRING != parser.getCurrentToken()) {
+            throw new JsonParseException(parser, "Time is not a String.");
+        }
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        if (5 != parser.getTextLength() || ':' != text[offset + 2] || !isDigit(text[offset])
+                || !isDigit(text[offset + 1]) || !isDigit(text[offset + 3]) || !isDigit(text[offset + 4])) {
+            throw new JsonParseException(parser, "Time is not in HH:mm format: " + parser.getText());
+        }
+        return ((text[offset] - '0') * 10 + (text[offset + 1] - '0')) * 60
+                + (text[offset + 3] - '0') * 10 + (text[offset + 4] - '0');
+    }
+
+    /**
+     * Reads a flight number given as a String from the parser buffer, 0 when it is not a number.
+     */
+    private static int readNumber(JsonParser parser) throws IOException {
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        if (0 == length || length > 9) {
+            return 0;
+        }
+        int number = 0;
+        for (int i = offset; i < offset + length; i++) {
+            if (!isDigit(text[i])) {
+                return 0;
+            }
+            number = number * 10 + (text[i] - '0');
+        }
+        return number;
+    }
+
+    private static Boolean readBoolean(JsonParser parser) throws IOException {
+        return JsonToken.VALUE_NULL == parser.getCurrentToken() ? null : parser.getValueAsBoolean();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (expected != actual) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual + ".");
+        }
+    }
+
+    /**
+     * Growable int columns of the flights parsed so far.
+     */
+    private static class Columns {
+
+        private int[] departures = new int[64];
+        private int[] arrivals = new int[64];
+        private int[] numbers = new int[64];
+        private int size;
+
+        void add(int departure, int arrival, int number) {
+            if (size == departures.length) {
+                departures = Arrays.copyOf(departures, size * 2);
+                arrivals = Arrays.copyOf(arrivals, size * 2);
+                numbers = Arrays.copyOf(numbers, size * 2);
+            }
+            departures[size] = departure;
+            arrivals[size] = arrival;
+            numbers[size] = number;
+            size++;
+        }
+
+        MonthSchedule toMonthSchedule(int year, int month) {
+            if (0 == size) {
+                return MonthSchedule.empty(year, month);
+            }
+            return MonthSchedule.of(year, month, Arrays.copyOf(departures, size), Arrays.copyOf(arrivals, size),
+                    Arrays.copyOf(numbers, size));
+        }
+    }
+}
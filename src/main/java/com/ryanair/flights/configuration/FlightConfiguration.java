@@ -1,12 +1,35 @@
 package com.ryanair.flights.configuration;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ryanair.flights.client.impl.MeteredConnectionManager;
+import com.ryanair.flights.client.impl.ScheduleCacheLoader;
+import com.ryanair.flights.model.MonthSchedule;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCache;
-import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.web.client.RestTemplate;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.spi.DocumentationType;
@@ -14,16 +37,89 @@ import springfox.documentation.spring.web.plugins.Docket;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
 import java.util.Collections;
-import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
+@Slf4j
 @EnableCaching
+@EnableScheduling
 @EnableSwagger2
+@EnableConfigurationProperties({SearchProperties.class, ScheduleCacheProperties.class, HttpClientProperties.class,
+        IoExecutorProperties.class, SnapshotProperties.class, TraceProperties.class})
 public class FlightConfiguration {
 
+    private static final String READ_TIMEOUT_HANDLER = "readTimeout";
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient httpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    /**
+     * Pool of keep-alive connections shared by every RestTemplate call, bound to the meter registry as a MeterBinder.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public MeteredConnectionManager connectionManager(HttpClientProperties httpClientProperties) {
+        MeteredConnectionManager connectionManager =
+                new MeteredConnectionManager(httpClientProperties.getValidateAfterInactivity().toMillis());
+        connectionManager.setMaxTotal(httpClientProperties.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(httpClientProperties.getMaxPerRoute());
+
+        return connectionManager;
+    }
+
+    /**
+     * Apache HttpClient over the shared connection pool. Idle and expired connections are evicted in the background,
+     * and connections are kept alive for as long as the upstream allows, or the configured keepAlive otherwise.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(MeteredConnectionManager connectionManager,
+                                          HttpClientProperties httpClientProperties) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) httpClientProperties.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) httpClientProperties.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) httpClientProperties.getPoolAcquireTimeout().toMillis())
+                .build();
+        long keepAliveMs = httpClientProperties.getKeepAlive().toMillis();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setConnectionManagerShared(true)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return keepAlive > 0 ? keepAlive : keepAliveMs;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(httpClientProperties.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Gives the WebClient clients a bounded Reactor Netty connection pool with the same limits and timeouts as the
+     * RestTemplate ones. The read timeout only runs from a request to the end of its response, so connections kept
+     * idle in the pool are not closed by it.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "client.mode", havingValue = "async")
+    public WebClientCustomizer pooledWebClientCustomizer(HttpClientProperties httpClientProperties) {
+        ConnectionProvider connectionProvider = ConnectionProvider.fixed("upstream",
+                httpClientProperties.getMaxTotal(), httpClientProperties.getPoolAcquireTimeout().toMillis());
+        long readTimeoutMs = httpClientProperties.getReadTimeout().toMillis();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .tcpConfiguration(tcpClient -> tcpClient
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                                (int) httpClientProperties.getConnectTimeout().toMillis()))
+                .doOnRequest((request, connection) -> connection.addHandlerLast(READ_TIMEOUT_HANDLER,
+                        new ReadTimeoutHandler(readTimeoutMs, TimeUnit.MILLISECONDS)))
+                .doAfterResponse((response, connection) -> connection.removeHandler(READ_TIMEOUT_HANDLER));
+
+        return webClientBuilder -> webClientBuilder.clientConnector(new ReactorClientHttpConnector(httpClient));
     }
 
     @Bean
@@ -35,16 +131,72 @@ public class FlightConfiguration {
                 .build();
     }
 
+    /**
+     * Pool starting the next airport pair fetch of the batch requests as one completes. Batches fetch at most
+     * batch-concurrency pairs at once, so a batch, which needs every pair of all its queries, can not starve the single
+     * searches, and no thread of this pool waits for a fetch.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService batchExecutor(SearchProperties searchProperties) {
+        return Executors.newFixedThreadPool(searchProperties.getBatchConcurrency(),
+                new CustomizableThreadFactory("batch-"));
+    }
+
+    /**
+     * Executor for the blocking upstream calls of the RestTemplate clients, kept apart from the pools doing CPU work.
+     * It is a bounded pool, or a virtual thread per call when enabled and the JDK supports them.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService ioExecutor(IoExecutorProperties ioExecutorProperties) {
+        if (ioExecutorProperties.isVirtualThreads()) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("FlightConfiguration.ioExecutor. Virtual threads are not supported by this JDK, "
+                        + "using a bounded pool instead.");
+            }
+        }
+        return new ThreadPoolExecutor(ioExecutorProperties.getThreads(), ioExecutorProperties.getThreads(),
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(ioExecutorProperties.getQueueCapacity()),
+                new CustomizableThreadFactory("io-"), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Publishes the active, queued and completed tasks of the I/O executor as "executor.*" meters.
+     */
+    @Bean
+    public MeterBinder ioExecutorMetrics(@Qualifier("ioExecutor") ExecutorService ioExecutor) {
+        return new ExecutorServiceMetrics(ioExecutor, "io", Tags.empty());
+    }
+
+    /**
+     * Publishes the active, queued and completed tasks of the batch executor as "executor.*" meters.
+     */
     @Bean
-    public ForkJoinPool threadPool() {
-        return new ForkJoinPool(4);
+    public MeterBinder batchExecutorMetrics(@Qualifier("batchExecutor") ExecutorService batchExecutor) {
+        return new ExecutorServiceMetrics(batchExecutor, "batch", Tags.empty());
     }
 
+    /**
+     * Bounded cache manager, configured with a Caffeine spec such as
+     * "maximumSize=10000,expireAfterWrite=30m,refreshAfterWrite=20m,recordStats". With weigh-by-flights, for a spec
+     * bounded by maximumWeight, every schedule weighs its number of flights. Refreshes are reloaded on the io executor
+     * instead of the common pool.
+     */
     @Bean
-    public CacheManager cacheManager() {
-        SimpleCacheManager cacheManager = new SimpleCacheManager();
+    public CacheManager cacheManager(ScheduleCacheProperties scheduleCacheProperties,
+                                     ScheduleCacheLoader scheduleCacheLoader,
+                                     @Qualifier("ioExecutor") ExecutorService ioExecutor) {
+        Caffeine<Object, Object> caffeine = Caffeine.from(scheduleCacheProperties.getSpec()).executor(ioExecutor);
+        if (scheduleCacheProperties.isWeighByFlights()) {
+            caffeine.weigher((key, value) -> value instanceof MonthSchedule
+                    ? ((MonthSchedule) value).size() + 1 : 1);
+        }
 
-        cacheManager.setCaches(Collections.singletonList(new ConcurrentMapCache("schedule")));
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(caffeine);
+        cacheManager.setCacheLoader(scheduleCacheLoader);
+        cacheManager.setCacheNames(Collections.singletonList("schedule"));
 
         return cacheManager;
     }
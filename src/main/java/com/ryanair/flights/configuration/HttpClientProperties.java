@@ -0,0 +1,54 @@
+package com.ryanair.flights.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Connection pool and timeouts of the upstream HTTP clients, bound from "client.http.*" properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "client.http")
+public class HttpClientProperties {
+
+    /**
+     * Maximum number of pooled connections, across every upstream host.
+     */
+    private int maxTotal = 100;
+
+    /**
+     * Maximum number of pooled connections to a single upstream host.
+     */
+    private int maxPerRoute = 50;
+
+    /**
+     * Maximum time to establish a connection.
+     */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Maximum time waiting for data once connected.
+     */
+    private Duration readTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Maximum time waiting for a connection to be leased from the pool.
+     */
+    private Duration poolAcquireTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Pooled connections idle for longer than this are closed.
+     */
+    private Duration idleTimeout = Duration.ofSeconds(30);
+
+    /**
+     * How long a connection is kept alive when the upstream response does not say.
+     */
+    private Duration keepAlive = Duration.ofSeconds(60);
+
+    /**
+     * Idle time after which a pooled connection is checked before being reused.
+     */
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+}
@@ -0,0 +1,27 @@
+package com.ryanair.flights.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Executor running the blocking upstream calls, bound from "client.executor.*" properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "client.executor")
+public class IoExecutorProperties {
+
+    /**
+     * Number of threads, which bounds how many blocking upstream calls run at once on the node.
+     */
+    private int threads = 32;
+
+    /**
+     * Calls waiting for a thread, once full the caller runs the call itself.
+     */
+    private int queueCapacity = 1000;
+
+    /**
+     * Runs every call on its own virtual thread instead, when the JDK supports them.
+     */
+    private boolean virtualThreads = false;
+}
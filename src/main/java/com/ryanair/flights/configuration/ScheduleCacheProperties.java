@@ -0,0 +1,41 @@
+package com.ryanair.flights.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the "schedule" cache, bound from "flight.cache.schedule.*" properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "flight.cache.schedule")
+public class ScheduleCacheProperties {
+
+    /**
+     * Caffeine spec of the cache, it needs a maximum size or weight and an expireAfterWrite for the warmer to work.
+     */
+    private String spec = "maximumSize=10000,expireAfterWrite=30m,refreshAfterWrite=20m,recordStats";
+
+    /**
+     * Weighs every schedule by its number of flights, for a spec bounded by maximumWeight instead of maximumSize.
+     */
+    private boolean weighByFlights;
+
+    private Warmer warmer = new Warmer();
+
+    @Data
+    public static class Warmer {
+
+        /**
+         * Number of most frequently used schedules kept warm.
+         */
+        private int topN = 200;
+
+        /**
+         * How long before going stale, by the refreshAfterWrite or the expireAfterWrite of the spec whichever comes
+         * first, a hot schedule is fetched again.
+         */
+        private Duration lead = Duration.ofMinutes(5);
+    }
+}
@@ -0,0 +1,84 @@
+package com.ryanair.flights.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import java.time.Duration;
+
+/**
+ * Tuning parameters for the interconnections search, bound from "flight.search.*" properties.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "flight.search")
+public class SearchProperties {
+
+    /**
+     * Maximum number of legs fetched at the same time for batch requests, on a pool of their own so a large batch
+     * does not hold back the single searches. Single searches request all their legs at once, bounded by the client.
+     */
+    private int batchConcurrency = 4;
+
+    /**
+     * Maximum time a single search waits for all of its legs to be fetched.
+     */
+    private Duration timeout = Duration.ofSeconds(10);
+
+    /**
+     * Maximum time a batch request waits for all of its legs to be fetched. A batch gets the search timeout per round of
+     * batchConcurrency airport pairs it fetches, up to this limit.
+     */
+    private Duration batchTimeout = Duration.ofMinutes(2);
+
+    /**
+     * Minimum time between the arrival of a leg and the departure of the next one, exclusive.
+     */
+    private Duration minLayover = Duration.ofHours(2);
+
+    /**
+     * Maximum time between the arrival of a leg and the departure of the next one, unbounded when not set.
+     */
+    private Duration maxLayover;
+
+    /**
+     * Maximum time from the first departure to the last arrival of a trip, unbounded when not set.
+     */
+    private Duration maxTripDuration;
+
+    /**
+     * Number of stops searched when a request does not set it. Up to one stop the hub join is used, beyond it the
+     * multi stop search.
+     */
+    private int maxStops = 1;
+
+    /**
+     * Highest number of stops a request can ask for.
+     */
+    private int maxStopsLimit = 3;
+
+    /**
+     * Highest number of queries a batch request can hold.
+     */
+    private int maxBatchSize = 500;
+
+    /**
+     * Number of flights kept per destination of a destinations search when a request does not set it, the earliest
+     * arriving ones. At least one, checked at startup.
+     */
+    @Min(1)
+    private int maxDestinationOptions = 10;
+
+    /**
+     * Highest number of stops a destinations request can ask for. Every route within that many stops of the departure
+     * airport is fetched, so it is kept below maxStopsLimit.
+     */
+    private int maxDestinationStopsLimit = 1;
+
+    /**
+     * Highest number of airport pairs a destinations search fetches, searches reaching more are rejected before
+     * fetching any.
+     */
+    private int maxDestinationPairs = 2000;
+}
@@ -0,0 +1,30 @@
+package com.ryanair.flights.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of the RouteGraph and the schedule cache kept on disk, bound from "flight.snapshot.*" properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "flight.snapshot")
+public class SnapshotProperties {
+
+    /**
+     * File the snapshot is written to and restored from on startup, snapshots are disabled when empty. Pointing it to
+     * a volume shared by the nodes, or baked into the image, lets new nodes start warm.
+     */
+    private String path;
+
+    /**
+     * Fetches again in the background every restored schedule and the RouteGraph, one at a time.
+     */
+    private boolean revalidate = true;
+
+    /**
+     * Age past which a snapshot is not restored, as its schedules would be served as fresh long after they changed.
+     */
+    private Duration maxAge = Duration.ofDays(1);
+}
@@ -0,0 +1,29 @@
+package com.ryanair.flights.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Tracing of the searches, bound from "flight.trace.*" properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "flight.trace")
+public class TraceProperties {
+
+    /**
+     * Searches taking at least this long are kept with their breakdown.
+     */
+    private Duration slowThreshold = Duration.ofSeconds(1);
+
+    /**
+     * Number of slow searches kept, the oldest being dropped first.
+     */
+    private int capacity = 50;
+
+    /**
+     * Number of upstream calls, slowest first, included in the Server-Timing header of a traced response.
+     */
+    private int headerCalls = 20;
+}
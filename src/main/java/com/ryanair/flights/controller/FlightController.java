@@ -1,25 +1,48 @@
 package com.ryanair.flights.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ryanair.flights.configuration.TraceProperties;
 import com.ryanair.flights.exception.RestClientException;
 import com.ryanair.flights.exception.ValidationException;
+import com.ryanair.flights.model.DestinationResponse;
+import com.ryanair.flights.model.FlightResponse;
+import com.ryanair.flights.model.InterconnectionQuery;
+import com.ryanair.flights.model.SearchOptions;
+import com.ryanair.flights.model.SearchTrace;
 import com.ryanair.flights.service.FlightServiceI;
+import com.ryanair.flights.service.SearchTraceServiceI;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.CacheManager;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.NotNull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Api(value="Flight Controller", description="Flight related operations.")
@@ -27,13 +50,25 @@ import java.time.LocalDateTime;
 @RequestMapping("/v1/flight")
 class FlightController {
 
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+    static final String SERVER_TIMING = "Server-Timing";
+
     private final FlightServiceI flightService;
-    private final CacheManager cacheManager;
+    private final SearchTraceServiceI searchTraceService;
+    private final ObjectMapper objectMapper;
+    private final Timer serializationTimer;
+    private final int headerCalls;
 
     @Autowired
-    public FlightController(FlightServiceI flightService, CacheManager cacheManager) {
+    public FlightController(FlightServiceI flightService, SearchTraceServiceI searchTraceService,
+                            ObjectMapper objectMapper, MeterRegistry meterRegistry, TraceProperties traceProperties) {
         this.flightService = flightService;
-        this.cacheManager = cacheManager;
+        this.searchTraceService = searchTraceService;
+        this.objectMapper = objectMapper;
+        this.headerCalls = traceProperties.getHeaderCalls();
+        this.serializationTimer = Timer.builder("flight.response.serialization")
+                .description("Time spent serializing the FlightResponses of a search as JSON, sending them excluded")
+                .register(meterRegistry);
     }
 
     /**
@@ -43,8 +78,20 @@ class FlightController {
      * @param arrival airport expressed in IATA code.
      * @param depDate departure date in ISO.DATE_TIME format.
      * @param arrDate arrival date in ISO.DATE_TIME format.
+     * @param limit maximum number of FlightResponse returned, all of them when null.
+     * @param offset number of FlightResponse skipped.
+     * @param sort order of the FlightResponse, DEPARTURE by default when paging.
+     * @param minLayover minimum minutes between connecting legs, the configured one when null.
+     * @param maxLayover maximum minutes between connecting legs, the configured one when null.
+     * @param maxDuration maximum minutes from first departure to last arrival, the configured one when null.
+     * @param maxStops maximum number of stops, the configured one when null.
+     * @param stream true to stream the FlightResponse as NDJSON, also chosen with an "application/x-ndjson" Accept.
+     * @param trace true to get the time spent in every stage and in the slowest upstream calls as a Server-Timing
+     * header. Streamed responses send their headers before the search ends, so they never carry it.
+     * @param accept header of the request.
+     * @param response used to write the NDJSON stream.
      * @return a ResponseEntity with an HttpStatus and a List of FlightResponse for successful hits, or a body
-     * explaining the problem for failures.
+     * explaining the problem for failures. Null when the FlightResponse are streamed.
      */
     @ApiOperation(value = "Gets interconnection flights.", response = ResponseEntity.class)
     @GetMapping("/interconnections")
@@ -52,34 +99,272 @@ class FlightController {
         @ApiParam(value = "Departure airport expressed in IATA code") @NotNull @RequestParam("departure") String departure,
         @ApiParam(value = "Arrival airport expressed in IATA code") @NotNull @RequestParam("arrival") String arrival,
         @ApiParam(value = "Departure date in ISO.DATE_TIME format") @NotNull @RequestParam("depDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime depDate,
-        @ApiParam(value = "Arrival date in ISO.DATE_TIME format") @NotNull @RequestParam("arrDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime arrDate
+        @ApiParam(value = "Arrival date in ISO.DATE_TIME format") @NotNull @RequestParam("arrDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime arrDate,
+        @ApiParam(value = "Maximum number of results") @RequestParam(value = "limit", required = false) Integer limit,
+        @ApiParam(value = "Number of results skipped") @RequestParam(value = "offset", defaultValue = "0") int offset,
+        @ApiParam(value = "Order of the results", allowableValues = "DEPARTURE, ARRIVAL, DURATION") @RequestParam(value = "sort", required = false) SearchOptions.Sort sort,
+        @ApiParam(value = "Minimum layover in minutes") @RequestParam(value = "minLayover", required = false) Integer minLayover,
+        @ApiParam(value = "Maximum layover in minutes") @RequestParam(value = "maxLayover", required = false) Integer maxLayover,
+        @ApiParam(value = "Maximum trip duration in minutes") @RequestParam(value = "maxDuration", required = false) Integer maxDuration,
+        @ApiParam(value = "Maximum number of stops") @RequestParam(value = "maxStops", required = false) Integer maxStops,
+        @ApiParam(value = "Streams the results as NDJSON") @RequestParam(value = "stream", defaultValue = "false") boolean stream,
+        @ApiParam(value = "Returns a Server-Timing header with the time spent per stage") @RequestParam(value = "trace", defaultValue = "false") boolean trace,
+        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+        HttpServletResponse response
     ) {
         String logHeader = "FlightController.interconnections: ";
-        log.info(logHeader + "request received for departure: " + departure + ", arrival: " + arrival +
-                ", departureDateTime: " + depDate + ", arrivalDateTime: " + arrDate);
+        log.info("{}request received for departure: {}, arrival: {}, departureDateTime: {}, arrivalDateTime: {}",
+                logHeader, departure, arrival, depDate, arrDate);
+
+        SearchOptions options = new SearchOptions(limit, offset, sort, toDuration(minLayover), toDuration(maxLayover),
+                toDuration(maxDuration), maxStops);
+        // Every search is traced, so the slow ones can be kept with their breakdown.
+        SearchTrace searchTrace = SearchTrace.begin(departure, arrival, depDate, arrDate);
+        try {
+            if (stream || (null != accept && accept.contains(APPLICATION_NDJSON))) {
+                streamInterconnections(departure, arrival, depDate, arrDate, options, response);
+                return null;
+            }
+
+            try {
+                List<FlightResponse> flightResponses = flightService.findInterconnections(departure, arrival, depDate,
+                        arrDate, options);
+                // Serialized here rather than by the message converter, so the time it takes can be measured.
+                long start = System.nanoTime();
+                byte[] body = objectMapper.writeValueAsBytes(flightResponses);
+                serializationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                searchTrace.stage("serialization", start);
+
+                return status(HttpStatus.OK, searchTrace, trace).contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .body(body);
+            } catch (ValidationException e) {
+                log.error(logHeader + e.getMessage(), e);
+                return status(HttpStatus.BAD_REQUEST, searchTrace, trace).body(e.getMessage());
+            } catch (RestClientException e) {
+                log.error(logHeader + e.getMessage(), e);
+                return status(e.getHttpStatus(), searchTrace, trace).body(e.getMessage());
+            } catch (Exception e) {
+                log.error(logHeader + e.getMessage(), e);
+                return status(HttpStatus.INTERNAL_SERVER_ERROR, searchTrace, trace).body(e.getMessage());
+            }
+        } finally {
+            SearchTrace.end();
+            searchTraceService.record(searchTrace);
+        }
+    }
+
+    /**
+     * Starts a response with the given status, carrying the breakdown of the search when it is traced.
+     */
+    private ResponseEntity.BodyBuilder status(HttpStatus status, SearchTrace searchTrace, boolean trace) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+        if (trace) {
+            searchTrace.finish();
+            builder.header(SERVER_TIMING, searchTrace.toServerTiming(headerCalls));
+        }
+        return builder;
+    }
+
+    /**
+     * Writes every FlightResponse as a line of JSON as soon as it is found, direct flights first. Failures are answered
+     * with the same status codes as the non streaming mode until the first line is flushed, they can only end the
+     * stream afterwards.
+     */
+    private void streamInterconnections(String departure, String arrival, LocalDateTime depDate,
+                                        LocalDateTime arrDate, SearchOptions options,
+                                        HttpServletResponse response) {
+        String logHeader = "FlightController.streamInterconnections: ";
 
         try {
-            return ResponseEntity.status(HttpStatus.OK)
-                .body(flightService.findInterconnections(departure, arrival, depDate, arrDate));
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(APPLICATION_NDJSON);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+            // Serialization is interleaved with the search, so its time is summed up and recorded once.
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream());
+            // Direct flights go out at once, connections are sent as the buffer fills up.
+            flightService.findInterconnections(departure, arrival, depDate, arrDate, options,
+                    flightResponse -> writer.write(flightResponse, 0 == flightResponse.getStops()));
+            writer.flush();
+            serializationTimer.record(writer.getSerializationNanos(), TimeUnit.NANOSECONDS);
+            SearchTrace searchTrace = SearchTrace.current();
+            if (null != searchTrace) {
+                searchTrace.stageNanos("serialization", writer.getSerializationNanos());
+            }
         } catch (ValidationException e) {
             log.error(logHeader + e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+            writeError(response, HttpStatus.BAD_REQUEST, e.getMessage());
         } catch (RestClientException e) {
             log.error(logHeader + e.getMessage(), e);
-            return ResponseEntity.status(e.getHttpStatus()).body(e.getMessage());
+            writeError(response, e.getHttpStatus(), e.getMessage());
         } catch (Exception e) {
             log.error(logHeader + e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+            writeError(response, HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
         }
     }
 
     /**
-     * Cache evicting task.
+     * Searches many departure and arrival pairs in a single call, fetching every schedule shared between them once.
+     * The result of every query is written as a line of NDJSON as soon as it is done, with the position of the query
+     * in the batch and either its flights or its error. Failures of the whole batch are answered with the same status
+     * codes as a single search.
+     * @param queries with the departure and arrival airports, the local dates in ISO format and optionally the maximum
+     * number of stops of every search.
+     * @param response used to write the NDJSON stream.
      */
-    @Scheduled(cron = "0 0/30 * * * ?") // execute after every 30 min
-    public void clearCacheSchedule(){
-        for (String name : cacheManager.getCacheNames()) {
-            cacheManager.getCache(name).clear();
+    @ApiOperation(value = "Gets interconnection flights for many queries at once, streamed as NDJSON.")
+    @PostMapping(value = "/interconnections/batch", produces = APPLICATION_NDJSON)
+    void batchInterconnections(
+        @ApiParam(value = "Queries, each with departure, arrival, depDate, arrDate and optionally maxStops") @RequestBody List<InterconnectionQuery> queries,
+        HttpServletResponse response
+    ) {
+        String logHeader = "FlightController.batchInterconnections: ";
+        log.info("{}request received for {} queries", logHeader, null == queries ? 0 : queries.size());
+
+        try {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(APPLICATION_NDJSON);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream());
+            flightService.findInterconnections(queries, result -> writer.write(result, true));
+            writer.flush();
+            serializationTimer.record(writer.getSerializationNanos(), TimeUnit.NANOSECONDS);
+        } catch (ValidationException e) {
+            log.error(logHeader + e.getMessage(), e);
+            writeError(response, HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (RestClientException e) {
+            log.error(logHeader + e.getMessage(), e);
+            writeError(response, e.getHttpStatus(), e.getMessage());
+        } catch (Exception e) {
+            log.error(logHeader + e.getMessage(), e);
+            writeError(response, HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns every airport reachable from a given departure airport departing not earlier than the specified departure
+     * datetime and arriving not later than the specified arrival datetime, with the earliest arrival and the earliest
+     * arriving flights to each of them.
+     * @param departure airport expressed in IATA code.
+     * @param depDate departure date in ISO.DATE_TIME format.
+     * @param arrDate arrival date in ISO.DATE_TIME format.
+     * @param limit maximum number of FlightResponse per destination, the configured one when null.
+     * @param minLayover minimum minutes between connecting legs, the configured one when null.
+     * @param maxLayover maximum minutes between connecting legs, the configured one when null.
+     * @param maxDuration maximum minutes from first departure to last arrival, the configured one when null.
+     * @param maxStops maximum number of stops, the configured one when null.
+     * @param trace true to get the time spent in every stage and in the slowest upstream calls as a Server-Timing
+     * header.
+     * @return a ResponseEntity with an HttpStatus and a List of DestinationResponse for successful hits, or a body
+     * explaining the problem for failures.
+     */
+    @ApiOperation(value = "Gets the destinations reachable from an airport.", response = ResponseEntity.class)
+    @GetMapping("/destinations")
+    ResponseEntity<?> destinations(
+        @ApiParam(value = "Departure airport expressed in IATA code") @NotNull @RequestParam("departure") String departure,
+        @ApiParam(value = "Departure date in ISO.DATE_TIME format") @NotNull @RequestParam("depDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime depDate,
+        @ApiParam(value = "Arrival date in ISO.DATE_TIME format") @NotNull @RequestParam("arrDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime arrDate,
+        @ApiParam(value = "Maximum number of results per destination") @RequestParam(value = "limit", required = false) Integer limit,
+        @ApiParam(value = "Minimum layover in minutes") @RequestParam(value = "minLayover", required = false) Integer minLayover,
+        @ApiParam(value = "Maximum layover in minutes") @RequestParam(value = "maxLayover", required = false) Integer maxLayover,
+        @ApiParam(value = "Maximum trip duration in minutes") @RequestParam(value = "maxDuration", required = false) Integer maxDuration,
+        @ApiParam(value = "Maximum number of stops") @RequestParam(value = "maxStops", required = false) Integer maxStops,
+        @ApiParam(value = "Returns a Server-Timing header with the time spent per stage") @RequestParam(value = "trace", defaultValue = "false") boolean trace
+    ) {
+        String logHeader = "FlightController.destinations: ";
+        log.info("{}request received for departure: {}, departureDateTime: {}, arrivalDateTime: {}",
+                logHeader, departure, depDate, arrDate);
+
+        SearchOptions options = new SearchOptions(limit, 0, null, toDuration(minLayover), toDuration(maxLayover),
+                toDuration(maxDuration), maxStops);
+        SearchTrace searchTrace = SearchTrace.begin(departure, null, depDate, arrDate);
+        try {
+            List<DestinationResponse> destinations = flightService.findDestinations(departure, depDate, arrDate,
+                    options);
+            long start = System.nanoTime();
+            byte[] body = objectMapper.writeValueAsBytes(destinations);
+            serializationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            searchTrace.stage("serialization", start);
+
+            return status(HttpStatus.OK, searchTrace, trace).contentType(MediaType.APPLICATION_JSON_UTF8).body(body);
+        } catch (ValidationException e) {
+            log.error(logHeader + e.getMessage(), e);
+            return status(HttpStatus.BAD_REQUEST, searchTrace, trace).body(e.getMessage());
+        } catch (RestClientException e) {
+            log.error(logHeader + e.getMessage(), e);
+            return status(e.getHttpStatus(), searchTrace, trace).body(e.getMessage());
+        } catch (Exception e) {
+            log.error(logHeader + e.getMessage(), e);
+            return status(HttpStatus.INTERNAL_SERVER_ERROR, searchTrace, trace).body(e.getMessage());
+        } finally {
+            SearchTrace.end();
+            searchTraceService.record(searchTrace);
+        }
+    }
+
+    private Duration toDuration(Integer minutes) {
+        return null == minutes ? null : Duration.ofMinutes(minutes);
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) {
+        if (response.isCommitted()) {
+            return;
+        }
+        try {
+            response.resetBuffer();
+            response.setStatus(status.value());
+            response.setContentType("text/plain");
+            response.getOutputStream().write((null == message ? "" : message).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | IllegalStateException e) {
+            log.error("FlightController.writeError: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes values as lines of NDJSON. Every value is serialized to memory before being written to the client, so the
+     * serialization time summed up leaves out the writes, which block as long as a slow client takes to read.
+     */
+    private static class NdjsonWriter {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final JsonGenerator generator;
+        private final OutputStream out;
+        private long serializationNanos;
+
+        NdjsonWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(buffer);
+            this.generator.setRootValueSeparator(null);
+            this.out = out;
+        }
+
+        /**
+         * Writes the value as a line, flushing it to the client at once if asked to.
+         */
+        void write(Object value, boolean flush) {
+            long start = System.nanoTime();
+            try {
+                generator.writeObject(value);
+                generator.writeRaw('\n');
+                generator.flush();
+                serializationNanos += System.nanoTime() - start;
+
+                buffer.writeTo(out);
+                buffer.reset();
+                if (flush) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        long getSerializationNanos() {
+            return serializationNanos;
         }
     }
 }
@@ -0,0 +1,34 @@
+package com.ryanair.flights.controller;
+
+import com.ryanair.flights.model.SearchTrace;
+import com.ryanair.flights.service.SearchTraceServiceI;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint, at /actuator/slowsearches, listing the most recent slow searches with the time spent in every
+ * stage and upstream call.
+ */
+@Component
+@Endpoint(id = "slowsearches")
+public class SlowSearchesEndpoint {
+
+    private final SearchTraceServiceI searchTraceService;
+
+    @Autowired
+    public SlowSearchesEndpoint(SearchTraceServiceI searchTraceService) {
+        this.searchTraceService = searchTraceService;
+    }
+
+    /**
+     * @return the slow searches kept, slowest first.
+     */
+    @ReadOperation
+    public List<SearchTrace> slowSearches() {
+        return searchTraceService.getSlowSearches();
+    }
+}
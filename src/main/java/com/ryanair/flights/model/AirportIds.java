@@ -0,0 +1,71 @@
+package com.ryanair.flights.model;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dense numeric ids of the airports, so the timetables can refer to them from int arrays. An id is given the first
+ * time an airport is seen in the timetables and never changes while the application runs, airports of requests are
+ * only looked up. New airports are rare, so the codes are
+ * copied into a new array on every one of them, and looking a code up by id never takes a lock.
+ */
+public final class AirportIds {
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static final Object LOCK = new Object();
+    private static volatile String[] codes = new String[0];
+
+    private AirportIds() {
+    }
+
+    /**
+     * @param code airport expressed in IATA code, in any case.
+     * @return the id of the airport.
+     */
+    public static int of(String code) {
+        String key = code.toUpperCase(Locale.ROOT);
+        Integer id = IDS.get(key);
+        if (null != id) {
+            return id;
+        }
+        synchronized (LOCK) {
+            id = IDS.get(key);
+            if (null == id) {
+                // The code is published before its id, so every id handed out can be looked up.
+                String[] grown = Arrays.copyOf(codes, codes.length + 1);
+                id = codes.length;
+                grown[id] = key;
+                codes = grown;
+                IDS.put(key, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Looks an airport up without giving it an id, for codes coming from requests, which must not grow the ids.
+     * @param code airport expressed in IATA code, in any case.
+     * @return the id of the airport, -1 when it was never seen.
+     */
+    public static int idOf(String code) {
+        Integer id = IDS.get(code.toUpperCase(Locale.ROOT));
+        return null == id ? -1 : id;
+    }
+
+    /**
+     * @param id of an airport.
+     * @return the airport IATA code, in upper case.
+     */
+    public static String code(int id) {
+        return codes[id];
+    }
+
+    /**
+     * @return the number of ids given, every id is lower than it.
+     */
+    public static int size() {
+        return codes.length;
+    }
+}
@@ -0,0 +1,22 @@
+package com.ryanair.flights.model;
+
+import lombok.Data;
+
+/**
+ * A departure and arrival airport pair, used as the identity of a leg regardless of the Route it comes from.
+ */
+@Data
+public class AirportPair {
+
+    private final String from;
+    private final String to;
+
+    public AirportPair(String from, String to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public static AirportPair of(Route route) {
+        return new AirportPair(route.getAirportFrom(), route.getAirportTo());
+    }
+}
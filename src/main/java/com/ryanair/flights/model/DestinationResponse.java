@@ -0,0 +1,20 @@
+package com.ryanair.flights.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class DestinationResponse {
+
+    private String arrivalAirport;
+    private LocalDateTime earliestArrival;
+    private List<FlightResponse> flights;
+
+    public DestinationResponse(String arrivalAirport, LocalDateTime earliestArrival, List<FlightResponse> flights) {
+        this.arrivalAirport = arrivalAirport;
+        this.earliestArrival = earliestArrival;
+        this.flights = flights;
+    }
+}
@@ -0,0 +1,60 @@
+package com.ryanair.flights.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Local date times expressed as whole minutes since 1970-01-01T00:00, so timetables can be kept and compared as plain
+ * ints. Times are local to their airport, the offset is only used for the arithmetic.
+ */
+public final class EpochMinutes {
+
+    private EpochMinutes() {
+    }
+
+    /**
+     * @param dateTime to be converted, seconds are dropped.
+     * @return the minutes since the epoch.
+     */
+    public static int of(LocalDateTime dateTime) {
+        return (int) Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * @param dateTime to be converted, rounded up to the next minute when it has seconds.
+     * @return the minutes since the epoch.
+     */
+    public static int ceiling(LocalDateTime dateTime) {
+        return (int) Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC) + 59 + (dateTime.getNano() > 0 ? 1 : 0), 60);
+    }
+
+    /**
+     * @param year of the date.
+     * @param month of the date.
+     * @param day of the month, days past its end roll over into the next month.
+     * @param minuteOfDay from 0 to 1439.
+     * @return the minutes since the epoch.
+     */
+    public static int of(int year, int month, int day, int minuteOfDay) {
+        return (int) (LocalDate.of(year, month, 1).toEpochDay() + day - 1) * 24 * 60 + minuteOfDay;
+    }
+
+    /**
+     * @param epochMinutes minutes since the epoch.
+     * @return the LocalDateTime they represent.
+     */
+    public static LocalDateTime toLocalDateTime(int epochMinutes) {
+        return LocalDateTime.ofEpochSecond(epochMinutes * 60L, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Parses a time of the schedules API without allocating.
+     * @param time in "HH:mm" format.
+     * @return the minute of the day.
+     */
+    public static int parseMinuteOfDay(String time) {
+        return ((time.charAt(0) - '0') * 10 + (time.charAt(1) - '0')) * 60
+                + (time.charAt(3) - '0') * 10 + (time.charAt(4) - '0');
+    }
+}
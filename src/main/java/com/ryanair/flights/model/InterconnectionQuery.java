@@ -0,0 +1,30 @@
+package com.ryanair.flights.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A departure and arrival airport pair searched within a date range, as one of the queries of a batch.
+ */
+@Data
+@NoArgsConstructor
+public class InterconnectionQuery {
+
+    private String departure;
+    private String arrival;
+    private LocalDateTime depDate;
+    private LocalDateTime arrDate;
+    /**
+     * Maximum number of stops, the configured one when null.
+     */
+    private Integer maxStops;
+
+    public InterconnectionQuery(String departure, String arrival, LocalDateTime depDate, LocalDateTime arrDate) {
+        this.departure = departure;
+        this.arrival = arrival;
+        this.depDate = depDate;
+        this.arrDate = arrDate;
+    }
+}
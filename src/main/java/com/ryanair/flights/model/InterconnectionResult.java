@@ -0,0 +1,42 @@
+package com.ryanair.flights.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * The flights found for one of the queries of a batch, identified by its position in the batch, or the error that
+ * made it fail.
+ */
+@Data
+public class InterconnectionResult {
+
+    private final int query;
+    private final String departure;
+    private final String arrival;
+    private final List<FlightResponse> flights;
+    private final String error;
+
+    public InterconnectionResult(int query, String departure, String arrival, List<FlightResponse> flights,
+                                 String error) {
+        this.query = query;
+        this.departure = departure;
+        this.arrival = arrival;
+        this.flights = flights;
+        this.error = error;
+    }
+
+    public static InterconnectionResult of(int query, InterconnectionQuery interconnectionQuery,
+                                           List<FlightResponse> flights) {
+        return new InterconnectionResult(query, interconnectionQuery.getDeparture(),
+                interconnectionQuery.getArrival(), flights, null);
+    }
+
+    public static InterconnectionResult failed(int query, InterconnectionQuery interconnectionQuery, String error) {
+        if (null == interconnectionQuery) {
+            return new InterconnectionResult(query, null, null, null, error);
+        }
+        return new InterconnectionResult(query, interconnectionQuery.getDeparture(),
+                interconnectionQuery.getArrival(), null, error);
+    }
+}
@@ -0,0 +1,201 @@
+package com.ryanair.flights.model;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Immutable schedule of a route for a whole month, kept as columns of primitives sorted by departure: departures and
+ * arrivals in EpochMinutes and flight numbers. Times are parsed once when the schedule is built, and no object is kept
+ * per flight. Instances are shared through the schedule cache, so they are never trimmed in place: a ScheduleView is
+ * used instead.
+ */
+public class MonthSchedule {
+
+    private static final int[] NONE = new int[0];
+
+    @Getter
+    private final int year;
+    @Getter
+    private final int month;
+    private final int[] departures;
+    private final int[] arrivals;
+    private final int[] numbers;
+
+    private MonthSchedule(int year, int month, int[] departures, int[] arrivals, int[] numbers) {
+        this.year = year;
+        this.month = month;
+        this.departures = departures;
+        this.arrivals = arrivals;
+        this.numbers = numbers;
+    }
+
+    /**
+     * @return a MonthSchedule without flights.
+     */
+    public static MonthSchedule empty(int year, int month) {
+        return new MonthSchedule(year, month, NONE, NONE, NONE);
+    }
+
+    /**
+     * Builds a MonthSchedule from a deserialized Schedule. Arrivals are on the day of the departure, as the schedules
+     * API gives no arrival day.
+     * @param year of the Schedule, as it is not part of the response.
+     * @param month of the Schedule.
+     * @param schedule deserialized from the schedules API.
+     * @return a MonthSchedule.
+     */
+    public static MonthSchedule of(int year, int month, Schedule schedule) {
+        int size = 0;
+        if (null != schedule.getDays()) {
+            for (Day day : schedule.getDays()) {
+                size += null == day.getFlights() ? 0 : day.getFlights().size();
+            }
+        }
+        if (0 == size) {
+            return empty(year, month);
+        }
+
+        int[] departures = new int[size];
+        int[] arrivals = new int[size];
+        int[] numbers = new int[size];
+        int i = 0;
+        for (Day day : schedule.getDays()) {
+            if (null == day.getFlights()) {
+                continue;
+            }
+            int midnight = EpochMinutes.of(year, month, day.getDay(), 0);
+            for (Flight flight : day.getFlights()) {
+                departures[i] = midnight + EpochMinutes.parseMinuteOfDay(flight.getDepartureTime());
+                arrivals[i] = midnight + EpochMinutes.parseMinuteOfDay(flight.getArrivalTime());
+                numbers[i] = null == flight.getNumber() ? 0 : flight.getNumber();
+                i++;
+            }
+        }
+        return sorted(year, month, departures, arrivals, numbers);
+    }
+
+    /**
+     * Builds a MonthSchedule from its columns, sorting them by departure unless they already are.
+     * @param year of the schedule.
+     * @param month of the schedule.
+     * @param departures in EpochMinutes.
+     * @param arrivals in EpochMinutes, as many as departures.
+     * @param numbers of the flights, as many as departures.
+     * @return a MonthSchedule owning the given arrays.
+     */
+    public static MonthSchedule of(int year, int month, int[] departures, int[] arrivals, int[] numbers) {
+        if (departures.length != arrivals.length || departures.length != numbers.length) {
+            throw new IllegalArgumentException("Columns of " + year + "-" + month + " differ in length.");
+        }
+        for (int i = 1; i < departures.length; i++) {
+            if (departures[i - 1] > departures[i]) {
+                return sorted(year, month, departures, arrivals, numbers);
+            }
+        }
+        return new MonthSchedule(year, month, departures, arrivals, numbers);
+    }
+
+    /**
+     * Sorts the columns by departure, through a single primitive sort of the departure packed with its position.
+     */
+    private static MonthSchedule sorted(int year, int month, int[] departures, int[] arrivals, int[] numbers) {
+        long[] order = new long[departures.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = ((long) departures[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int[] sortedDepartures = new int[order.length];
+        int[] sortedArrivals = new int[order.length];
+        int[] sortedNumbers = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            int position = (int) order[i];
+            sortedDepartures[i] = departures[position];
+            sortedArrivals[i] = arrivals[position];
+            sortedNumbers[i] = numbers[position];
+        }
+        return new MonthSchedule(year, month, sortedDepartures, sortedArrivals, sortedNumbers);
+    }
+
+    /**
+     * @return the number of flights.
+     */
+    public int size() {
+        return departures.length;
+    }
+
+    /**
+     * @param i index of the flight, ordered by departure.
+     * @return the departure in EpochMinutes.
+     */
+    public int getDeparture(int i) {
+        return departures[i];
+    }
+
+    /**
+     * @param i index of the flight, ordered by departure.
+     * @return the arrival in EpochMinutes.
+     */
+    public int getArrival(int i) {
+        return arrivals[i];
+    }
+
+    /**
+     * @param i index of the flight, ordered by departure.
+     * @return the flight number, 0 when unknown.
+     */
+    public int getNumber(int i) {
+        return numbers[i];
+    }
+
+    /**
+     * Binary search of the first flight departing strictly after the given time.
+     * @param after exclusive lower bound for the departure, in EpochMinutes.
+     * @return the index of the flight, size() when every flight departs before.
+     */
+    public int firstDepartingAfter(int after) {
+        int low = 0;
+        int high = departures.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departures[mid] > after) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    public LocalDateTime getDepartureDateTime(int i) {
+        return EpochMinutes.toLocalDateTime(departures[i]);
+    }
+
+    public LocalDateTime getArrivalDateTime(int i) {
+        return EpochMinutes.toLocalDateTime(arrivals[i]);
+    }
+
+    /**
+     * @return a ScheduleView over every flight of the month.
+     */
+    public ScheduleView view() {
+        return new ScheduleView(this, 0, size());
+    }
+
+    /**
+     * @param from index of the first flight included.
+     * @param to index of the first flight excluded.
+     * @return a ScheduleView over the flights between the given indexes.
+     */
+    public ScheduleView view(int from, int to) {
+        return new ScheduleView(this, from, to);
+    }
+
+    @Override
+    public String toString() {
+        return "MonthSchedule(year=" + year + ", month=" + month + ", flights=" + size() + ")";
+    }
+}
@@ -31,4 +31,14 @@ public class Route {
         this.operator = operator;
         this.group = group;
     }
+
+    /**
+     * Finds if a route is flown directly by RYANAIR, the only routes used to build connections.
+     * @param connectingAirport of the route, null for direct routes.
+     * @param operator of the route.
+     * @return true if the route has no connecting airport and RYANAIR as operator, else false.
+     */
+    public static boolean isDirectRyanair(String connectingAirport, String operator) {
+        return null == connectingAirport && "RYANAIR".equalsIgnoreCase(operator);
+    }
 }
@@ -0,0 +1,104 @@
+package com.ryanair.flights.model;
+
+import java.util.*;
+
+/**
+ * Immutable snapshot of the available routes, indexed by origin and by destination airport. Airport codes are kept in
+ * upper case and interned, so every snapshot shares the same String instances.
+ */
+public class RouteGraph {
+
+    private final Map<String, Map<String, Route>> routesByOrigin;
+    private final Map<String, Map<String, Route>> routesByDestination;
+    private final int size;
+
+    private RouteGraph(Map<String, Map<String, Route>> routesByOrigin,
+                       Map<String, Map<String, Route>> routesByDestination, int size) {
+        this.routesByOrigin = routesByOrigin;
+        this.routesByDestination = routesByDestination;
+        this.size = size;
+    }
+
+    /**
+     * Builds a RouteGraph from the given routes, keeping only the first route of every airport pair.
+     * @param routes to be indexed.
+     * @return a RouteGraph.
+     */
+    public static RouteGraph of(Collection<Route> routes) {
+        Map<String, Map<String, Route>> byOrigin = new HashMap<>();
+        Map<String, Map<String, Route>> byDestination = new HashMap<>();
+        int size = 0;
+
+        for (Route route : routes) {
+            String from = key(route.getAirportFrom()).intern();
+            String to = key(route.getAirportTo()).intern();
+
+            if (null == byOrigin.computeIfAbsent(from, k -> new HashMap<>()).putIfAbsent(to, route)) {
+                byDestination.computeIfAbsent(to, k -> new HashMap<>()).put(from, route);
+                size++;
+            }
+        }
+        return new RouteGraph(byOrigin, byDestination, size);
+    }
+
+    /**
+     * Finds if there is a route between two airports.
+     * @param from airport expressed in IATA code.
+     * @param to airport expressed in IATA code.
+     * @return true if the route exists, else false.
+     */
+    public boolean hasRoute(String from, String to) {
+        return null != getRoute(from, to);
+    }
+
+    /**
+     * Gets the route between two airports.
+     * @param from airport expressed in IATA code.
+     * @param to airport expressed in IATA code.
+     * @return the Route or null if it does not exist.
+     */
+    public Route getRoute(String from, String to) {
+        return routesByOrigin.getOrDefault(key(from), Collections.emptyMap()).get(key(to));
+    }
+
+    /**
+     * Gets all the routes departing from an airport.
+     * @param from airport expressed in IATA code.
+     * @return an unmodifiable Collection of Route that can be empty.
+     */
+    public Collection<Route> getRoutesFrom(String from) {
+        return Collections.unmodifiableCollection(
+                routesByOrigin.getOrDefault(key(from), Collections.emptyMap()).values());
+    }
+
+    /**
+     * Gets all the routes arriving to an airport.
+     * @param to airport expressed in IATA code.
+     * @return an unmodifiable Collection of Route that can be empty.
+     */
+    public Collection<Route> getRoutesTo(String to) {
+        return Collections.unmodifiableCollection(
+                routesByDestination.getOrDefault(key(to), Collections.emptyMap()).values());
+    }
+
+    /**
+     * Gets every route of the graph.
+     * @return a List of Route that can be empty.
+     */
+    public List<Route> getRoutes() {
+        List<Route> routes = new ArrayList<>(size);
+        routesByOrigin.values().forEach(byDestination -> routes.addAll(byDestination.values()));
+        return routes;
+    }
+
+    /**
+     * @return the number of distinct routes in the graph.
+     */
+    public int size() {
+        return size;
+    }
+
+    private static String key(String airport) {
+        return null == airport ? "" : airport.toUpperCase(Locale.ROOT);
+    }
+}
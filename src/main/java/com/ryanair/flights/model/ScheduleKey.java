@@ -0,0 +1,22 @@
+package com.ryanair.flights.model;
+
+import lombok.Data;
+
+/**
+ * Identity of a MonthSchedule, used as the key of the schedule cache.
+ */
+@Data
+public class ScheduleKey {
+
+    private final String departure;
+    private final String arrival;
+    private final int year;
+    private final int month;
+
+    public ScheduleKey(String departure, String arrival, int year, int month) {
+        this.departure = departure;
+        this.arrival = arrival;
+        this.year = year;
+        this.month = month;
+    }
+}
@@ -0,0 +1,79 @@
+package com.ryanair.flights.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read only window over a range of the flights of a MonthSchedule. It copies nothing, so trimming a cached
+ * MonthSchedule to a date range never affects other requests. Indexes are relative to the start of the window.
+ */
+public class ScheduleView {
+
+    private final MonthSchedule schedule;
+    private final int from;
+    private final int to;
+
+    public ScheduleView(MonthSchedule schedule, int from, int to) {
+        if (from < 0 || to > schedule.size() || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") is not valid for " + schedule);
+        }
+        this.schedule = schedule;
+        this.from = from;
+        this.to = to;
+    }
+
+    public int getYear() {
+        return schedule.getYear();
+    }
+
+    public int getMonth() {
+        return schedule.getMonth();
+    }
+
+    /**
+     * @return the number of flights within the range.
+     */
+    public int size() {
+        return to - from;
+    }
+
+    public boolean isEmpty() {
+        return from == to;
+    }
+
+    /**
+     * @param i index of the flight within the range, ordered by departure.
+     * @return the departure in EpochMinutes.
+     */
+    public int getDeparture(int i) {
+        return schedule.getDeparture(from + i);
+    }
+
+    /**
+     * @param i index of the flight within the range, ordered by departure.
+     * @return the arrival in EpochMinutes.
+     */
+    public int getArrival(int i) {
+        return schedule.getArrival(from + i);
+    }
+
+    /**
+     * @param i index of the flight within the range, ordered by departure.
+     * @return the flight number, 0 when unknown.
+     */
+    public int getNumber(int i) {
+        return schedule.getNumber(from + i);
+    }
+
+    public LocalDateTime getDepartureDateTime(int i) {
+        return schedule.getDepartureDateTime(from + i);
+    }
+
+    public LocalDateTime getArrivalDateTime(int i) {
+        return schedule.getArrivalDateTime(from + i);
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduleView(year=" + getYear() + ", month=" + getMonth() + ", from=" + from + ", to=" + to + ")";
+    }
+}
@@ -0,0 +1,65 @@
+package com.ryanair.flights.model;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Paging, ordering and connection limits of the interconnections search. Without paging or ordering the search returns
+ * every result in the order it finds them, with all the direct flights in a single FlightResponse. Connection limits
+ * left null fall back to the configured ones.
+ */
+@Data
+public class SearchOptions {
+
+    public enum Sort {
+        /**
+         * Earliest departure first.
+         */
+        DEPARTURE,
+        /**
+         * Earliest arrival first.
+         */
+        ARRIVAL,
+        /**
+         * Shortest total trip duration first.
+         */
+        DURATION
+    }
+
+    private static final SearchOptions NONE = new SearchOptions(null, 0, null);
+
+    private final Integer limit;
+    private final int offset;
+    private final Sort sort;
+    private final Duration minLayover;
+    private final Duration maxLayover;
+    private final Duration maxTripDuration;
+    private final Integer maxStops;
+
+    public SearchOptions(Integer limit, int offset, Sort sort) {
+        this(limit, offset, sort, null, null, null, null);
+    }
+
+    public SearchOptions(Integer limit, int offset, Sort sort, Duration minLayover, Duration maxLayover,
+                         Duration maxTripDuration, Integer maxStops) {
+        this.limit = limit;
+        this.offset = offset;
+        this.sort = sort;
+        this.minLayover = minLayover;
+        this.maxLayover = maxLayover;
+        this.maxTripDuration = maxTripDuration;
+        this.maxStops = maxStops;
+    }
+
+    public static SearchOptions none() {
+        return NONE;
+    }
+
+    /**
+     * @return true when a limit, an offset or a sort is set, so every flight is ranked on its own.
+     */
+    public boolean isPaged() {
+        return null != limit || offset > 0 || null != sort;
+    }
+}
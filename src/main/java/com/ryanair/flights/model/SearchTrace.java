@@ -0,0 +1,219 @@
+package com.ryanair.flights.model;
+
+import lombok.Getter;
+import lombok.Value;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing breakdown of a single search: the time spent in every stage and in every schedule month fetched for it. The
+ * trace of a search is bound to the thread running it, so stages can be recorded without threading it through every
+ * call, and it is handed explicitly to the threads fetching on its behalf. Every search is traced, so the search and
+ * its calls are kept as given and only described when the trace is read.
+ */
+public class SearchTrace {
+
+    private static final ThreadLocal<SearchTrace> CURRENT = new ThreadLocal<>();
+
+    private final String departure;
+    private final String arrival;
+    private final LocalDateTime departureDate;
+    private final LocalDateTime arrivalDate;
+    @Getter
+    private final Instant startedAt;
+    private final long start;
+    private volatile long durationNanos = -1;
+    private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+    private final List<Call> calls = new ArrayList<>();
+
+    /**
+     * @param departure airport of the search.
+     * @param arrival airport of the search, null when searching every destination.
+     * @param departureDate of the search.
+     * @param arrivalDate of the search.
+     */
+    public SearchTrace(String departure, String arrival, LocalDateTime departureDate, LocalDateTime arrivalDate) {
+        this.departure = departure;
+        this.arrival = arrival;
+        this.departureDate = departureDate;
+        this.arrivalDate = arrivalDate;
+        this.startedAt = Instant.now();
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Starts a trace bound to the current thread.
+     * @param departure airport of the search.
+     * @param arrival airport of the search, null when searching every destination.
+     * @param departureDate of the search.
+     * @param arrivalDate of the search.
+     * @return the SearchTrace started.
+     */
+    public static SearchTrace begin(String departure, String arrival, LocalDateTime departureDate,
+        LocalDateTime arrivalDate) {
+
+        SearchTrace trace = new SearchTrace(departure, arrival, departureDate, arrivalDate);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * @return the SearchTrace bound to the current thread, null when the search is not traced.
+     */
+    public static SearchTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds a trace to the current thread, or unbinds it when null.
+     * @param trace to be bound.
+     */
+    public static void attach(SearchTrace trace) {
+        if (null == trace) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(trace);
+        }
+    }
+
+    /**
+     * Finishes the trace bound to the current thread, and unbinds it.
+     */
+    public static void end() {
+        SearchTrace trace = CURRENT.get();
+        CURRENT.remove();
+        if (null != trace) {
+            trace.finish();
+        }
+    }
+
+    /**
+     * Adds the time elapsed since the given start to a stage, a stage run several times adding up.
+     * @param stage name.
+     * @param startNanos from System.nanoTime.
+     */
+    public void stage(String stage, long startNanos) {
+        stageNanos(stage, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Adds the given time to a stage, for stages interleaved with others.
+     * @param stage name.
+     * @param nanos spent in the stage.
+     */
+    public synchronized void stageNanos(String stage, long nanos) {
+        stageNanos.merge(stage, nanos, Long::sum);
+    }
+
+    /**
+     * Records the fetch of a schedule month made on behalf of the search.
+     * @param name of the call.
+     * @param departure airport of the schedule.
+     * @param arrival airport of the schedule.
+     * @param month of the schedule.
+     * @param outcome of the call.
+     * @param startNanos from System.nanoTime.
+     */
+    public synchronized void call(String name, String departure, String arrival, YearMonth month, String outcome,
+        long startNanos) {
+
+        calls.add(new Call(name, departure, arrival, month, outcome, System.nanoTime() - startNanos));
+    }
+
+    /**
+     * @return the search, as its airports and date range.
+     */
+    public String getQuery() {
+        return departure + "-" + (null == arrival ? "*" : arrival) + " " + departureDate + "/" + arrivalDate;
+    }
+
+    /**
+     * Fixes the duration of the search, a finished trace keeping its first duration.
+     */
+    public void finish() {
+        if (durationNanos < 0) {
+            durationNanos = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * @return the duration of the search in milliseconds, up to now when it is not finished.
+     */
+    public double getDurationMillis() {
+        return toMillis(durationNanos < 0 ? System.nanoTime() - start : durationNanos);
+    }
+
+    /**
+     * @return the Timing of every stage, in the order they were first recorded.
+     */
+    public synchronized List<Timing> getStages() {
+        List<Timing> stages = new ArrayList<>(stageNanos.size());
+        stageNanos.forEach((stage, nanos) -> stages.add(new Timing(stage, null, toMillis(nanos))));
+        return stages;
+    }
+
+    /**
+     * @return the Timing of every call, slowest first.
+     */
+    public synchronized List<Timing> getCalls() {
+        List<Timing> sorted = new ArrayList<>(calls.size());
+        calls.forEach(call -> sorted.add(call.toTiming()));
+        sorted.sort(Comparator.comparingDouble(Timing::getMillis).reversed());
+        return sorted;
+    }
+
+    /**
+     * Formats the trace as a Server-Timing header value: every stage, the slowest calls up to the given number, and
+     * the total.
+     * @param maxCalls number of calls included.
+     * @return the header value.
+     */
+    public String toServerTiming(int maxCalls) {
+        StringJoiner header = new StringJoiner(", ");
+        getStages().forEach(stage -> header.add(stage.toServerTiming()));
+        getCalls().stream().limit(maxCalls).forEach(call -> header.add(call.toServerTiming()));
+        header.add(new Timing("total", null, getDurationMillis()).toServerTiming());
+        return header.toString();
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1) * 1000) / 1000.0;
+    }
+
+    /**
+     * A schedule month fetch as recorded, described only when the trace is read.
+     */
+    @Value
+    private static class Call {
+
+        String name;
+        String departure;
+        String arrival;
+        YearMonth month;
+        String outcome;
+        long nanos;
+
+        Timing toTiming() {
+            return new Timing(name, departure + "-" + arrival + " " + month + " " + outcome, toMillis(nanos));
+        }
+    }
+
+    /**
+     * Time spent in a stage or a call, in milliseconds.
+     */
+    @Value
+    public static class Timing {
+
+        String name;
+        String description;
+        double millis;
+
+        String toServerTiming() {
+            return name + (null == description ? "" : ";desc=\"" + description + "\"") + ";dur=" + millis;
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.ryanair.flights.service;
 
 import com.ryanair.flights.exception.ServiceException;
+import com.ryanair.flights.model.DestinationResponse;
 import com.ryanair.flights.model.FlightResponse;
+import com.ryanair.flights.model.InterconnectionQuery;
+import com.ryanair.flights.model.InterconnectionResult;
+import com.ryanair.flights.model.SearchOptions;
 import com.ryanair.flights.exception.RestClientException;
 import com.ryanair.flights.exception.ValidationException;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface FlightServiceI {
 
@@ -23,4 +28,84 @@ public interface FlightServiceI {
      */
     List<FlightResponse> findInterconnections(String departure, String arrival, LocalDateTime departureDate,
         LocalDateTime arrivalDate) throws ValidationException, RestClientException, ServiceException;
+
+    /**
+     * Streams all the flights that one one trip combined in two get from departure to arrival for a given date range.
+     * Direct flights are handed to the sink first, then every connection as soon as it is found, so the whole result
+     * is never held at once.
+     * @param departure airport expressed in IATA code.
+     * @param arrival airport expressed in IATA code.
+     * @param departureDate in LocalDateTime.
+     * @param arrivalDate in LocalDateTime.
+     * @param sink receiving a FlightResponse with Legs for no stops and then one per one stop flight.
+     * @throws RestClientException when RestClient fails.
+     * @throws ValidationException when input data is not valid.
+     * @throws ServiceException when business at service layer fail.
+     */
+    void findInterconnections(String departure, String arrival, LocalDateTime departureDate,
+        LocalDateTime arrivalDate, Consumer<FlightResponse> sink)
+        throws ValidationException, RestClientException, ServiceException;
+
+    /**
+     * Gets a page of the flights that one one trip combined in two get from departure to arrival for a given date
+     * range. When paged, every direct flight is a FlightResponse of its own, ranked together with the one stop flights.
+     * @param departure airport expressed in IATA code.
+     * @param arrival airport expressed in IATA code.
+     * @param departureDate in LocalDateTime.
+     * @param arrivalDate in LocalDateTime.
+     * @param options with the limit, offset and sort of the results.
+     * @return a List FlightResponse with Legs for no stops and one stop flights.
+     * @throws RestClientException when RestClient fails.
+     * @throws ValidationException when input data is not valid.
+     * @throws ServiceException when business at service layer fail.
+     */
+    List<FlightResponse> findInterconnections(String departure, String arrival, LocalDateTime departureDate,
+        LocalDateTime arrivalDate, SearchOptions options)
+        throws ValidationException, RestClientException, ServiceException;
+
+    /**
+     * Streams a page of the flights that one one trip combined in two get from departure to arrival for a given date
+     * range. Without paging options results are handed over as soon as they are found, else once the page is known.
+     * @param departure airport expressed in IATA code.
+     * @param arrival airport expressed in IATA code.
+     * @param departureDate in LocalDateTime.
+     * @param arrivalDate in LocalDateTime.
+     * @param options with the limit, offset and sort of the results.
+     * @param sink receiving every FlightResponse of the page.
+     * @throws RestClientException when RestClient fails.
+     * @throws ValidationException when input data is not valid.
+     * @throws ServiceException when business at service layer fail.
+     */
+    void findInterconnections(String departure, String arrival, LocalDateTime departureDate,
+        LocalDateTime arrivalDate, SearchOptions options, Consumer<FlightResponse> sink)
+        throws ValidationException, RestClientException, ServiceException;
+
+    /**
+     * Streams the flights of many queries searched together. The RouteGraph is loaded once and the schedules of every
+     * query are fetched at the same time, every airport pair only once for all the queries sharing it.
+     * @param queries with the departure and arrival airports and the date range of every search.
+     * @param sink receiving an InterconnectionResult per query, as soon as the query is done. A query that fails is
+     * handed over with its error, without failing the others.
+     * @throws RestClientException when the routes can not be fetched.
+     * @throws ValidationException when the batch is empty or too large.
+     */
+    void findInterconnections(List<InterconnectionQuery> queries, Consumer<InterconnectionResult> sink)
+        throws ValidationException, RestClientException;
+
+    /**
+     * Gets every airport that can be reached from departure for a given date range, with the earliest arriving flights
+     * to each of them. The routes are explored outward from departure once, and the schedule of every leg is fetched
+     * once for all the destinations.
+     * @param departure airport expressed in IATA code.
+     * @param departureDate in LocalDateTime.
+     * @param arrivalDate in LocalDateTime.
+     * @param options with the number of flights per destination as limit, and the connection limits.
+     * @return a List of DestinationResponse ordered by earliest arrival.
+     * @throws RestClientException when RestClient fails.
+     * @throws ValidationException when input data is not valid, or the search reaches too many airport pairs.
+     * @throws ServiceException when business at service layer fail.
+     */
+    List<DestinationResponse> findDestinations(String departure, LocalDateTime departureDate,
+        LocalDateTime arrivalDate, SearchOptions options)
+        throws ValidationException, RestClientException, ServiceException;
 }
@@ -1,10 +1,14 @@
 package com.ryanair.flights.service;
 
 import com.ryanair.flights.exception.RestClientException;
+import com.ryanair.flights.model.AirportPair;
 import com.ryanair.flights.model.ConnectionRoute;
 import com.ryanair.flights.model.Route;
+import com.ryanair.flights.model.RouteGraph;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 public interface RouteServiceI {
 
@@ -15,21 +19,67 @@ public interface RouteServiceI {
      */
     List<Route> getRoutes() throws RestClientException;
 
+    /**
+     * Gets the current RouteGraph, fetching the routes only if no RouteGraph was built yet.
+     * @return a RouteGraph with all the routes available.
+     * @throws RestClientException in case communication with API fails.
+     */
+    RouteGraph getRouteGraph() throws RestClientException;
+
+    /**
+     * Gets the current RouteGraph without fetching the routes.
+     * @return Optional of the current RouteGraph, empty if none was built yet.
+     */
+    Optional<RouteGraph> getCurrentRouteGraph();
+
+    /**
+     * Uses the given RouteGraph until the next refresh, unless a RouteGraph was already built.
+     * @param restored RouteGraph, usually read from a snapshot.
+     * @return true if the given RouteGraph is now the current one, else false.
+     */
+    boolean restoreRouteGraph(RouteGraph restored);
+
+    /**
+     * Rebuilds the RouteGraph and swaps it with the current one. In case of failure the current RouteGraph is kept.
+     */
+    void refreshRouteGraph();
+
     /**
      * Gets all the routes that connect the given airports.
      * @param departure airport expressed in IATA code.
      * @param arrival airport expressed in IATA code.
-     * @param allRoutes available.
+     * @param routeGraph with the routes available.
      * @return a List of ConnectionRoute.
      */
-    List<ConnectionRoute> getConnectionRoutes(String departure, String arrival, List<Route> allRoutes);
+    List<ConnectionRoute> getConnectionRoutes(String departure, String arrival, RouteGraph routeGraph);
+
+    /**
+     * Gets every route that is part of a trip between the given airports with up to the given number of stops,
+     * without visiting an airport twice. The direct route between them is not included.
+     * @param departure airport expressed in IATA code.
+     * @param arrival airport expressed in IATA code.
+     * @param maxStops maximum number of stops of a trip.
+     * @param routeGraph with the routes available.
+     * @return a Set of AirportPair that can be empty.
+     */
+    Set<AirportPair> getConnectionPairs(String departure, String arrival, int maxStops, RouteGraph routeGraph);
+
+    /**
+     * Gets every route that can be a leg of a trip from the given airport with up to the given number of stops, that
+     * is every route leaving an airport reached within maxStops routes. Routes back to the departure are not included.
+     * @param departure airport expressed in IATA code.
+     * @param maxStops maximum number of stops of a trip.
+     * @param routeGraph with the routes available.
+     * @return a Set of AirportPair that can be empty.
+     */
+    Set<AirportPair> getReachablePairs(String departure, int maxStops, RouteGraph routeGraph);
 
     /**
      * Finds if a direct flight exists for the given routes.
      * @param departure airport expressed in IATA code.
      * @param arrival airport expressed in IATA code.
-     * @param allRoutes to search for flights.
+     * @param routeGraph to search for flights.
      * @return true if a direct flight exists, else false.
      */
-    boolean existDirectFlight(String departure, String arrival, List<Route> allRoutes);
+    boolean existDirectFlight(String departure, String arrival, RouteGraph routeGraph);
 }
@@ -2,22 +2,60 @@ package com.ryanair.flights.service;
 
 import com.ryanair.flights.exception.ServiceException;
 import com.ryanair.flights.exception.ValidationException;
-import com.ryanair.flights.model.Schedule;
+import com.ryanair.flights.model.MonthSchedule;
+import com.ryanair.flights.model.ScheduleView;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface ScheduleServiceI {
 
     /**
-     * Gets a List o Schedule for the given date range.
+     * Gets a List of ScheduleView for the given date range.
      * @param departure airport expressed in IATA code.
      * @param arrival airport expressed in IATA code.
      * @param departureDate expressed in LocalDateTime.
      * @param arrivalDate expressed in LocalDateTime.
-     * @return a List of Schedule for the given date range.
+     * @return a List of ScheduleView trimmed to the given date range.
      * @throws ValidationException when date validation fails.
      */
-    List<Schedule> getSchedules(String departure, String arrival, LocalDateTime departureDate,
+    List<ScheduleView> getSchedules(String departure, String arrival, LocalDateTime departureDate,
         LocalDateTime arrivalDate) throws ValidationException, ServiceException;
+
+    /**
+     * Gets a List of ScheduleView for the given date range without waiting for it to be fetched.
+     * @param departure airport expressed in IATA code.
+     * @param arrival airport expressed in IATA code.
+     * @param departureDate expressed in LocalDateTime.
+     * @param arrivalDate expressed in LocalDateTime.
+     * @return a CompletableFuture of the List of ScheduleView trimmed to the given date range.
+     * @throws ValidationException when date validation fails.
+     */
+    CompletableFuture<List<ScheduleView>> getSchedulesAsync(String departure, String arrival,
+        LocalDateTime departureDate, LocalDateTime arrivalDate) throws ValidationException;
+
+    /**
+     * Gets the MonthSchedule of every given month without waiting for them, all of them requested at once.
+     * @param departure airport expressed in IATA code.
+     * @param arrival airport expressed in IATA code.
+     * @param months to be fetched.
+     * @return a CompletableFuture of a Map with the MonthSchedule of every month that has one, in the order of the
+     * given months.
+     */
+    CompletableFuture<Map<YearMonth, MonthSchedule>> getMonthSchedulesAsync(String departure, String arrival,
+        Collection<YearMonth> months);
+
+    /**
+     * Trims already fetched MonthSchedules to the given date range.
+     * @param schedules to be trimmed, all of them within the date range months.
+     * @param departureDate expressed in LocalDateTime.
+     * @param arrivalDate expressed in LocalDateTime.
+     * @return a List of ScheduleView trimmed to the given date range.
+     */
+    List<ScheduleView> filterSchedules(Collection<MonthSchedule> schedules, LocalDateTime departureDate,
+        LocalDateTime arrivalDate);
 }
@@ -0,0 +1,21 @@
+package com.ryanair.flights.service;
+
+import com.ryanair.flights.model.SearchTrace;
+
+import java.util.List;
+
+public interface SearchTraceServiceI {
+
+    /**
+     * Keeps a finished SearchTrace when the search was slow.
+     * @param trace of the search.
+     * @return true if the trace was kept, else false.
+     */
+    boolean record(SearchTrace trace);
+
+    /**
+     * Gets the slow searches kept.
+     * @return a List of SearchTrace, slowest first.
+     */
+    List<SearchTrace> getSlowSearches();
+}
@@ -0,0 +1,16 @@
+package com.ryanair.flights.service;
+
+public interface SnapshotServiceI {
+
+    /**
+     * Restores the RouteGraph and the schedule cache from the snapshot file, when there is one.
+     * @return the number of schedules restored.
+     */
+    int restore();
+
+    /**
+     * Writes the current RouteGraph and schedule cache to the snapshot file.
+     * @return true if the snapshot was written, else false.
+     */
+    boolean save();
+}
@@ -0,0 +1,22 @@
+package com.ryanair.flights.service.impl;
+
+/**
+ * Tells, from its EpochMinutes, a connection the sink of a search would drop anyway, so the join skips it before
+ * building any Leg or FlightResponse for it.
+ */
+@FunctionalInterface
+interface ConnectionFilter {
+
+    /**
+     * Keeps every connection.
+     */
+    ConnectionFilter NONE = (departure, arrival, stops) -> false;
+
+    /**
+     * @param departure of the first leg, in EpochMinutes.
+     * @param arrival of the last leg, in EpochMinutes.
+     * @param stops of the connection.
+     * @return true when the connection would be dropped.
+     */
+    boolean rejects(int departure, int arrival, int stops);
+}
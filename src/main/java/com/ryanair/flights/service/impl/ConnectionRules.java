@@ -0,0 +1,77 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.configuration.SearchProperties;
+import com.ryanair.flights.model.SearchOptions;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Stops, layover and trip duration limits of a connecting flight, taken from the SearchOptions of a request or else
+ * from the configured defaults. A null maximum duration means unbounded. Times are compared in EpochMinutes.
+ */
+@Getter
+class ConnectionRules {
+
+    private final int maxStops;
+    private final Duration minLayover;
+    private final Duration maxLayover;
+    private final Duration maxTripDuration;
+
+    ConnectionRules(int maxStops, Duration minLayover, Duration maxLayover, Duration maxTripDuration) {
+        this.maxStops = maxStops;
+        this.minLayover = minLayover;
+        this.maxLayover = maxLayover;
+        this.maxTripDuration = maxTripDuration;
+    }
+
+    static ConnectionRules of(SearchProperties searchProperties) {
+        return new ConnectionRules(searchProperties.getMaxStops(), searchProperties.getMinLayover(),
+                searchProperties.getMaxLayover(), searchProperties.getMaxTripDuration());
+    }
+
+    /**
+     * @return these rules overridden by the limits set in the given SearchOptions.
+     */
+    ConnectionRules with(SearchOptions options) {
+        return new ConnectionRules(
+                null != options.getMaxStops() ? options.getMaxStops() : maxStops,
+                null != options.getMinLayover() ? options.getMinLayover() : minLayover,
+                null != options.getMaxLayover() ? options.getMaxLayover() : maxLayover,
+                null != options.getMaxTripDuration() ? options.getMaxTripDuration() : maxTripDuration);
+    }
+
+    /**
+     * @param arrival of a leg in EpochMinutes.
+     * @return the exclusive lower bound for the departure of the leg following it.
+     */
+    int earliestOnwardDeparture(int arrival) {
+        return plus(arrival, minLayover);
+    }
+
+    /**
+     * @param firstDeparture of the first leg of a trip in EpochMinutes.
+     * @param lastArrival of the last leg of the trip in EpochMinutes.
+     * @return the inclusive upper bound for the departure of the leg following the last one, Integer.MAX_VALUE if
+     * unbounded.
+     */
+    int latestOnwardDeparture(int firstDeparture, int lastArrival) {
+        return Math.min(plus(lastArrival, maxLayover), latestArrival(firstDeparture));
+    }
+
+    /**
+     * @param firstDeparture of the first leg of a trip in EpochMinutes.
+     * @return the inclusive upper bound for the arrival of the trip, Integer.MAX_VALUE if unbounded.
+     */
+    int latestArrival(int firstDeparture) {
+        return plus(firstDeparture, maxTripDuration);
+    }
+
+    /**
+     * Adds a duration to a time in EpochMinutes, saturating at Integer.MAX_VALUE, which a null duration stands for.
+     */
+    private static int plus(int minutes, Duration duration) {
+        return null == duration ? Integer.MAX_VALUE
+                : (int) Math.min(Integer.MAX_VALUE, minutes + duration.toMinutes());
+    }
+}
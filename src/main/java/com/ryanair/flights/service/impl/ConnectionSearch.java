@@ -0,0 +1,149 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.model.AirportIds;
+import com.ryanair.flights.model.FlightResponse;
+import com.ryanair.flights.model.Leg;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Time dependent search of the trips between two airports with up to a number of stops, over the legs fetched for
+ * them. Before walking the legs, a backward scan finds for every airport and number of legs left the latest departure
+ * still able to reach the arrival airport, so dead ends are pruned instead of explored. The walk only touches the int
+ * arrays of the LegIndex.
+ */
+class ConnectionSearch {
+
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private final int departure;
+    private final int arrival;
+    private final ConnectionRules rules;
+    private final LegIndex legIndex;
+    private final int maxLegs;
+    private final int airports;
+
+    /**
+     * Latest departures in EpochMinutes by number of legs left, starting at one leg left, and by airport id.
+     */
+    private int[][] latestDepartures;
+    private boolean[] visited;
+    private int[] trip;
+
+    ConnectionSearch(String departure, String arrival, ConnectionRules rules, LegIndex legIndex) {
+        this.departure = AirportIds.idOf(departure);
+        this.arrival = AirportIds.idOf(arrival);
+        this.rules = rules;
+        this.legIndex = legIndex;
+        this.maxLegs = rules.getMaxStops() + 1;
+        this.airports = AirportIds.size();
+    }
+
+    /**
+     * Hands every trip with at least one stop and at most maxStops to the sink, as soon as it is found. No trip visits
+     * an airport twice.
+     * @param sink receiving a FlightResponse with Legs per trip.
+     */
+    void search(Consumer<FlightResponse> sink) {
+        if (departure < 0 || arrival < 0) {
+            return;
+        }
+        computeLatestDepartures();
+        visited = new boolean[airports];
+        trip = new int[maxLegs];
+        visited[departure] = true;
+
+        int end = legIndex.endDepartingNotAfter(departure, Integer.MAX_VALUE);
+        for (int first = legIndex.firstDepartingAfter(departure, Integer.MIN_VALUE); first < end; first++) {
+            int airport = legIndex.to(first);
+            if (airport == arrival || !canReachArrival(first, maxLegs - 1)) {
+                continue;
+            }
+            trip[0] = first;
+            visited[airport] = true;
+            searchFrom(1, sink);
+            visited[airport] = false;
+        }
+    }
+
+    /**
+     * Extends the trip made of the given number of legs.
+     */
+    private void searchFrom(int length, Consumer<FlightResponse> sink) {
+        int last = trip[length - 1];
+        int airport = legIndex.to(last);
+        int legsLeft = maxLegs - length;
+        int firstDeparture = legIndex.departure(trip[0]);
+
+        int latestDeparture = Math.min(rules.latestOnwardDeparture(firstDeparture, legIndex.arrival(last)),
+                latestDepartures[legsLeft - 1][airport]);
+        int latestArrival = rules.latestArrival(firstDeparture);
+
+        int end = legIndex.endDepartingNotAfter(airport, latestDeparture);
+        for (int next = legIndex.firstDepartingAfter(airport, rules.earliestOnwardDeparture(legIndex.arrival(last)));
+             next < end; next++) {
+            int nextAirport = legIndex.to(next);
+            if (visited[nextAirport] || legIndex.arrival(next) > latestArrival) {
+                continue;
+            }
+            if (nextAirport == arrival) {
+                sink.accept(toResponse(length, next));
+            } else if (canReachArrival(next, legsLeft - 1)) {
+                trip[length] = next;
+                visited[nextAirport] = true;
+                searchFrom(length + 1, sink);
+                visited[nextAirport] = false;
+            }
+        }
+    }
+
+    /**
+     * Builds the Legs of the trip made of the given number of legs followed by the last one.
+     */
+    private FlightResponse toResponse(int length, int last) {
+        List<Leg> legs = new ArrayList<>(length + 1);
+        for (int i = 0; i < length; i++) {
+            legs.add(legIndex.toLeg(trip[i]));
+        }
+        legs.add(legIndex.toLeg(last));
+
+        return new FlightResponse(length, legs);
+    }
+
+    /**
+     * Finds if the arrival airport can still be reached after the given leg, with the given number of legs left.
+     */
+    private boolean canReachArrival(int leg, int legsLeft) {
+        if (legsLeft <= 0) {
+            return false;
+        }
+        int latest = latestDepartures[legsLeft - 1][legIndex.to(leg)];
+        return NONE != latest && latest > rules.earliestOnwardDeparture(legIndex.arrival(leg));
+    }
+
+    /**
+     * Scans the legs once per number of legs left. With one leg left an airport can depart as late as its last leg to
+     * the arrival airport; with more legs, as late as its last leg to an airport still able to depart afterwards.
+     * Layover maximums are ignored here, which only makes the bound looser.
+     */
+    private void computeLatestDepartures() {
+        latestDepartures = new int[maxLegs][];
+        int[] previous = new int[airports];
+        Arrays.fill(previous, NONE);
+
+        for (int legsLeft = 1; legsLeft <= maxLegs; legsLeft++) {
+            int[] current = previous.clone();
+
+            for (int i = 0; i < legIndex.size(); i++) {
+                int to = legIndex.to(i);
+                int onward = previous[to];
+                if (to == arrival || (NONE != onward && onward > rules.earliestOnwardDeparture(legIndex.arrival(i)))) {
+                    current[legIndex.from(i)] = Math.max(current[legIndex.from(i)], legIndex.departure(i));
+                }
+            }
+            latestDepartures[legsLeft - 1] = current;
+            previous = current;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.model.AirportIds;
+import com.ryanair.flights.model.DestinationResponse;
+import com.ryanair.flights.model.EpochMinutes;
+import com.ryanair.flights.model.FlightResponse;
+import com.ryanair.flights.model.Leg;
+
+import java.util.*;
+
+/**
+ * Time dependent search of every airport reachable from a departure airport with up to a number of stops, over the
+ * legs fetched for it. The legs are walked outward from the departure once, every trip found being an option for the
+ * airport it ends at, so all the destinations come out of the same walk instead of a search per destination. Only the
+ * earliest arriving options of every destination are kept, and a Leg object is only built for a trip that makes it
+ * among them. A trip is not extended either once neither its airport nor any airport it can still reach would keep
+ * it, as every extension arrives later still.
+ */
+class DestinationSearch {
+
+    private static final Comparator<Option> ORDER = Comparator.<Option>comparingInt(o -> o.arrival)
+            .thenComparingInt(o -> o.departure)
+            .thenComparingInt(o -> o.response.getStops());
+
+    private final int departure;
+    private final ConnectionRules rules;
+    private final LegIndex legIndex;
+    private final int maxLegs;
+    private final int maxOptions;
+    private final int airports;
+
+    /**
+     * Kept options by airport id, the worst of them at the head.
+     */
+    private PriorityQueue<Option>[] optionsByAirport;
+
+    /**
+     * Airports reachable from an airport by number of legs left and airport id, computed as the search gets to them.
+     */
+    private BitSet[][] onwardAirports;
+    private boolean[] visited;
+    private int[] trip;
+
+    DestinationSearch(String departure, ConnectionRules rules, LegIndex legIndex, int maxOptions) {
+        this.departure = AirportIds.idOf(departure);
+        this.rules = rules;
+        this.legIndex = legIndex;
+        this.maxLegs = rules.getMaxStops() + 1;
+        this.maxOptions = maxOptions;
+        this.airports = AirportIds.size();
+    }
+
+    /**
+     * Finds every destination reachable with at most maxStops stops. No trip visits an airport twice.
+     * @return a List of DestinationResponse ordered by earliest arrival, each with its earliest arriving flights.
+     */
+    @SuppressWarnings("unchecked")
+    List<DestinationResponse> search() {
+        if (departure < 0) {
+            return Collections.emptyList();
+        }
+        optionsByAirport = new PriorityQueue[airports];
+        onwardAirports = new BitSet[maxLegs][airports];
+        visited = new boolean[airports];
+        trip = new int[maxLegs];
+        visited[departure] = true;
+
+        int end = legIndex.endDepartingNotAfter(departure, Integer.MAX_VALUE);
+        for (int first = legIndex.firstDepartingAfter(departure, Integer.MIN_VALUE); first < end; first++) {
+            if (visited[legIndex.to(first)]
+                    || legIndex.arrival(first) > rules.latestArrival(legIndex.departure(first))
+                    || isDominated(legIndex.to(first), legIndex.arrival(first), maxLegs - 1)) {
+                continue;
+            }
+            trip[0] = first;
+            searchFrom(1);
+        }
+        return toResponses();
+    }
+
+    /**
+     * Offers the trip made of the given number of legs to its destination, and then extends it.
+     */
+    private void searchFrom(int length) {
+        offer(length);
+        if (length == maxLegs) {
+            return;
+        }
+
+        int last = trip[length - 1];
+        int airport = legIndex.to(last);
+        int firstDeparture = legIndex.departure(trip[0]);
+        int latestArrival = rules.latestArrival(firstDeparture);
+        visited[airport] = true;
+
+        int end = legIndex.endDepartingNotAfter(airport,
+                rules.latestOnwardDeparture(firstDeparture, legIndex.arrival(last)));
+        for (int next = legIndex.firstDepartingAfter(airport, rules.earliestOnwardDeparture(legIndex.arrival(last)));
+             next < end; next++) {
+            if (visited[legIndex.to(next)] || legIndex.arrival(next) > latestArrival
+                    || isDominated(legIndex.to(next), legIndex.arrival(next), maxLegs - length - 1)) {
+                continue;
+            }
+            trip[length] = next;
+            searchFrom(length + 1);
+        }
+        visited[airport] = false;
+    }
+
+    /**
+     * Tells whether a trip getting to an airport at the given arrival can be dropped along with all its extensions:
+     * that airport and every airport reachable from it with the legs left already keep as many options as asked for,
+     * all arriving earlier. Reachable airports are taken from every leg, regardless of times or visited airports, which
+     * only makes the check stricter.
+     */
+    private boolean isDominated(int airport, int arrival, int legsLeft) {
+        if (!isWorseThanKept(airport, arrival)) {
+            return false;
+        }
+        if (0 == legsLeft) {
+            return true;
+        }
+        BitSet onward = onwardAirports(airport, legsLeft);
+        for (int other = onward.nextSetBit(0); other >= 0; other = onward.nextSetBit(other + 1)) {
+            if (other != departure && !isWorseThanKept(other, arrival)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tells whether an airport keeps as many options as asked for, all arriving before the given arrival.
+     */
+    private boolean isWorseThanKept(int airport, int arrival) {
+        PriorityQueue<Option> options = optionsByAirport[airport];
+        return null != options && options.size() == maxOptions && arrival > options.peek().arrival;
+    }
+
+    /**
+     * Gets the airports reachable from an airport with up to the given number of legs.
+     */
+    private BitSet onwardAirports(int airport, int legsLeft) {
+        BitSet onward = onwardAirports[legsLeft][airport];
+        if (null == onward) {
+            onward = new BitSet();
+            int end = legIndex.endDepartingNotAfter(airport, Integer.MAX_VALUE);
+            for (int i = legIndex.firstDepartingAfter(airport, Integer.MIN_VALUE); i < end; i++) {
+                onward.set(legIndex.to(i));
+            }
+            if (legsLeft > 1) {
+                BitSet next = (BitSet) onward.clone();
+                for (int to = next.nextSetBit(0); to >= 0; to = next.nextSetBit(to + 1)) {
+                    onward.or(onwardAirports(to, legsLeft - 1));
+                }
+            }
+            onwardAirports[legsLeft][airport] = onward;
+        }
+        return onward;
+    }
+
+    /**
+     * Keeps the trip made of the given number of legs if it is among the earliest arriving of its destination.
+     */
+    private void offer(int length) {
+        int last = trip[length - 1];
+        int destination = legIndex.to(last);
+        PriorityQueue<Option> options = optionsByAirport[destination];
+        if (null == options) {
+            options = new PriorityQueue<>(Math.min(maxOptions, 16) + 1, ORDER.reversed());
+            optionsByAirport[destination] = options;
+        }
+
+        // Most trips arrive later than every option kept, and are dropped before building anything.
+        int arrival = legIndex.arrival(last);
+        if (options.size() == maxOptions && arrival > options.peek().arrival) {
+            return;
+        }
+        Option option = new Option(legIndex.departure(trip[0]), arrival, toResponse(length));
+        if (options.size() < maxOptions) {
+            options.add(option);
+        } else if (ORDER.compare(option, options.peek()) < 0) {
+            options.poll();
+            options.add(option);
+        }
+    }
+
+    /**
+     * Builds the Legs of the trip made of the given number of legs.
+     */
+    private FlightResponse toResponse(int length) {
+        List<Leg> legs = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            legs.add(legIndex.toLeg(trip[i]));
+        }
+        return new FlightResponse(length - 1, legs);
+    }
+
+    /**
+     * Lists the destinations by their earliest arrival, then by airport, each with its options in order.
+     */
+    private List<DestinationResponse> toResponses() {
+        List<DestinationResponse> responses = new ArrayList<>();
+        for (int airport = 0; airport < airports; airport++) {
+            PriorityQueue<Option> options = optionsByAirport[airport];
+            if (null == options || options.isEmpty()) {
+                continue;
+            }
+            List<Option> sorted = new ArrayList<>(options);
+            sorted.sort(ORDER);
+            List<FlightResponse> flights = new ArrayList<>(sorted.size());
+            sorted.forEach(option -> flights.add(option.response));
+
+            responses.add(new DestinationResponse(AirportIds.code(airport),
+                    EpochMinutes.toLocalDateTime(sorted.get(0).arrival), flights));
+        }
+        responses.sort(Comparator.comparing(DestinationResponse::getEarliestArrival)
+                .thenComparing(DestinationResponse::getArrivalAirport));
+        return responses;
+    }
+
+    /**
+     * A trip to a destination with its first departure and last arrival in EpochMinutes.
+     */
+    private static class Option {
+
+        private final int departure;
+        private final int arrival;
+        private final FlightResponse response;
+
+        Option(int departure, int arrival, FlightResponse response) {
+            this.departure = departure;
+            this.arrival = arrival;
+            this.response = response;
+        }
+    }
+}
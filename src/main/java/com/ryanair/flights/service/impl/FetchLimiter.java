@@ -0,0 +1,93 @@
+package com.ryanair.flights.service.impl;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs asynchronous fetches at most a given number at a time, queueing the rest in the order they were submitted. No
+ * thread waits for a fetch: the next one is started when a running one completes, on the given executor, so fetches
+ * completing at once do not start each other on the same stack. A fetch cancelled while queued is never started.
+ */
+class FetchLimiter {
+
+    private final int permits;
+    private final Executor executor;
+    private final Queue<Fetch<?>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+
+    FetchLimiter(int permits, Executor executor) {
+        this.permits = permits;
+        this.executor = executor;
+    }
+
+    /**
+     * Queues a fetch, starting it right away when less than the permitted number are running.
+     * @param fetch starting the fetch and returning its future, it must not block.
+     * @return a CompletableFuture completed as the fetch, that can be cancelled to drop the fetch while queued.
+     */
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> fetch) {
+        Fetch<T> queued = new Fetch<>(fetch);
+        pending.add(queued);
+        drain();
+        return queued.result;
+    }
+
+    /**
+     * Starts queued fetches while there are permits left. A permit is taken before polling, so a fetch queued
+     * while the last permit is released is always started by one of the two threads.
+     */
+    private void drain() {
+        while (!pending.isEmpty()) {
+            int current = running.get();
+            if (current >= permits) {
+                return;
+            }
+            if (!running.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Fetch<?> next = pending.poll();
+            if (null == next || next.result.isDone()) {
+                running.decrementAndGet();
+            } else {
+                next.start();
+            }
+        }
+    }
+
+    private void release() {
+        running.decrementAndGet();
+        drain();
+    }
+
+    private class Fetch<T> {
+
+        private final Supplier<CompletableFuture<T>> fetch;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Fetch(Supplier<CompletableFuture<T>> fetch) {
+            this.fetch = fetch;
+        }
+
+        void start() {
+            CompletableFuture<T> started;
+            try {
+                started = fetch.get();
+            } catch (RuntimeException e) {
+                started = new CompletableFuture<>();
+                started.completeExceptionally(e);
+            }
+            started.whenCompleteAsync((value, error) -> {
+                if (null == error) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(error);
+                }
+                release();
+            }, executor);
+        }
+    }
+}
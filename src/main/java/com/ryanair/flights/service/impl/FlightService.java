@@ -1,5 +1,6 @@
 package com.ryanair.flights.service.impl;
 
+import com.ryanair.flights.configuration.SearchProperties;
 import com.ryanair.flights.exception.RestClientException;
 import com.ryanair.flights.exception.ServiceException;
 import com.ryanair.flights.exception.ValidationException;
@@ -8,14 +9,19 @@ import com.ryanair.flights.service.FlightServiceI;
 import com.ryanair.flights.service.RouteServiceI;
 import com.ryanair.flights.service.ScheduleServiceI;
 import com.ryanair.flights.validation.FlightServiceValidation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 @Service
 public class FlightService implements FlightServiceI {
@@ -23,14 +29,51 @@ public class FlightService implements FlightServiceI {
     private final RouteServiceI routeService;
     private final ScheduleServiceI scheduleService;
     private final FlightServiceValidation flightServiceValidation;
+    private final FetchLimiter batchFetches;
+    private final Duration timeout;
+    private final Duration batchTimeout;
+    private final int batchConcurrency;
+    private final ConnectionRules connectionRules;
+    private final int maxDestinationOptions;
+    private final Timer fetchTimer;
+    private final Timer oneStopJoinTimer;
+    private final Timer multiStopJoinTimer;
+    private final Timer destinationsTimer;
+    private final DistributionSummary resultsSummary;
 
     @Autowired
     public FlightService(RouteServiceI routeService, ScheduleServiceI scheduleService,
-        FlightServiceValidation flightServiceValidation) {
+        FlightServiceValidation flightServiceValidation,
+        @Qualifier("batchExecutor") ExecutorService batchExecutor, SearchProperties searchProperties,
+        MeterRegistry meterRegistry) {
 
         this.routeService = routeService;
         this.scheduleService = scheduleService;
         this.flightServiceValidation = flightServiceValidation;
+        this.batchFetches = new FetchLimiter(searchProperties.getBatchConcurrency(), batchExecutor);
+        this.timeout = searchProperties.getTimeout();
+        this.batchTimeout = searchProperties.getBatchTimeout();
+        this.batchConcurrency = searchProperties.getBatchConcurrency();
+        this.connectionRules = ConnectionRules.of(searchProperties);
+        this.maxDestinationOptions = searchProperties.getMaxDestinationOptions();
+        this.fetchTimer = Timer.builder("flight.search.fetch")
+                .description("Time spent fetching the schedules of every airport pair of a search")
+                .register(meterRegistry);
+        this.oneStopJoinTimer = joinTimer(meterRegistry, "1");
+        this.multiStopJoinTimer = joinTimer(meterRegistry, "multi");
+        this.destinationsTimer = Timer.builder("flight.search.destinations")
+                .description("Time spent walking the fetched schedules for every destination of an origin")
+                .register(meterRegistry);
+        this.resultsSummary = DistributionSummary.builder("flight.search.results")
+                .description("Flight responses handed to the sink per search")
+                .register(meterRegistry);
+    }
+
+    private static Timer joinTimer(MeterRegistry registry, String stops) {
+        return Timer.builder("flight.search.join")
+                .description("Time spent joining the fetched schedules into connections, handing them to the sink excluded")
+                .tag("stops", stops)
+                .register(registry);
     }
 
     /**
@@ -48,65 +91,510 @@ public class FlightService implements FlightServiceI {
     public List<FlightResponse> findInterconnections(String departure, String arrival, LocalDateTime departureDate,
         LocalDateTime arrivalDate) throws ValidationException, RestClientException, ServiceException {
 
-        flightServiceValidation.validateInterconnectionsParameters(departure, arrival, departureDate, arrivalDate);
+        List<FlightResponse> responses = new ArrayList<>();
+        findInterconnections(departure, arrival, departureDate, arrivalDate, responses::add);
+
+        return responses;
+    }
 
-        List<Route> allRoutes = routeService.getRoutes();
+    /**
+     * Streams all the flights that one one trip combined in two get from departure to arrival for a given date range.
+     * @param departure airport expressed in IATA code.
+     * @param arrival airport expressed in IATA code.
+     * @param departureDate in LocalDateTime.
+     * @param arrivalDate in LocalDateTime.
+     * @param sink receiving a FlightResponse with Legs for no stops and then one per one stop flight.
+     * @throws RestClientException when RestClient fails.
+     * @throws ValidationException when input data is not valid.
+     * @throws ServiceException when business at service layer fail.
+     */
+    @Override
+    public void findInterconnections(String departure, String arrival, LocalDateTime departureDate,
+        LocalDateTime arrivalDate, Consumer<FlightResponse> sink)
+        throws ValidationException, RestClientException, ServiceException {
 
-        // If direct routes exist, check for direct flights, else create an emtpy list of flights.
-        FlightResponse directFlights = routeService.existDirectFlight(departure, arrival, allRoutes)
-                ? getDirectFlights(departure, arrival, departureDate, arrivalDate)
-                : new FlightResponse(0);
+        findInterconnections(departure, arrival, departureDate, arrivalDate, SearchOptions.none(), sink);
+    }
 
-        List<FlightResponse> connectingFlights = getConnectingFlights(departure, arrival, departureDate, arrivalDate,
-                allRoutes);
+    /**
+     * Gets a page of the flights that one one trip combined in two get from departure to arrival for a given date
+     * range.
+     * @param departure airport expressed in IATA code.
+     * @param arrival airport expressed in IATA code.
+     * @param departureDate in LocalDateTime.
+     * @param arrivalDate in LocalDateTime.
+     * @param options with the limit, offset and sort of the results.
+     * @return a List FlightResponse with Legs for no stops and one stop flights.
+     * @throws RestClientException when RestClient fails.
+     * @throws ValidationException when input data is not valid.
+     * @throws ServiceException when business at service layer fail.
+     */
+    @Override
+    public List<FlightResponse> findInterconnections(String departure, String arrival, LocalDateTime departureDate,
+        LocalDateTime arrivalDate, SearchOptions options)
+        throws ValidationException, RestClientException, ServiceException {
 
         List<FlightResponse> responses = new ArrayList<>();
-        responses.add(directFlights);
-        responses.addAll(connectingFlights);
+        findInterconnections(departure, arrival, departureDate, arrivalDate, options, responses::add);
 
         return responses;
     }
 
+    /**
+     * Streams a page of the flights that one one trip combined in two get from departure to arrival for a given date
+     * range. Only the best offset + limit results are kept while searching, and connections outside the layover and
+     * trip duration limits are never built.
+     * @param departure airport expressed in IATA code.
+     * @param arrival airport expressed in IATA code.
+     * @param departureDate in LocalDateTime.
+     * @param arrivalDate in LocalDateTime.
+     * @param options with the limit, offset and sort of the results.
+     * @param sink receiving every FlightResponse of the page.
+     * @throws RestClientException when RestClient fails.
+     * @throws ValidationException when input data is not valid.
+     * @throws ServiceException when business at service layer fail.
+     */
+    @Override
+    public void findInterconnections(String departure, String arrival, LocalDateTime departureDate,
+        LocalDateTime arrivalDate, SearchOptions options, Consumer<FlightResponse> sink)
+        throws ValidationException, RestClientException, ServiceException {
+
+        flightServiceValidation.validateInterconnectionsParameters(departure, arrival, departureDate, arrivalDate);
+        flightServiceValidation.validateSearchOptions(options);
+        ConnectionRules rules = connectionRules.with(options);
+
+        if (!options.isPaged()) {
+            search(departure, arrival, departureDate, arrivalDate, rules, ConnectionFilter.NONE, sink);
+            return;
+        }
+
+        // The window also drops the connections it would not keep before they are built.
+        ResultWindow window = new ResultWindow(options);
+        search(departure, arrival, departureDate, arrivalDate, rules, window, response -> {
+            // Direct flights are ranked one by one, like the one stop flights.
+            if (0 == response.getStops()) {
+                if (null != response.getLegs()) {
+                    response.getLegs().forEach(leg -> window.accept(new FlightResponse(0,
+                            Collections.singletonList(leg))));
+                }
+            } else {
+                window.accept(response);
+            }
+        });
+        window.getResults().forEach(sink);
+    }
+
+    /**
+     * Streams the flights of many queries searched together. Every query is planned first, so the months needed from
+     * every airport pair are known before anything is fetched: each pair is then fetched once for all the queries
+     * sharing it, without holding a thread, and every query is joined as soon as its own pairs are there. The pairs of
+     * all the batches are fetched batchConcurrency at a time, so the whole batch waits for them up to the search
+     * timeout per round of fetches, never longer than the batch timeout. A pair that is not fetched by then fails every
+     * query sharing it without waiting again.
+     * @param queries with the departure and arrival airports and the date range of every search.
+     * @param sink receiving an InterconnectionResult per query, in the order of the queries. A query that fails is
+     * handed over with its error, without failing the others.
+     * @throws RestClientException when the routes can not be fetched.
+     * @throws ValidationException when the batch is empty or too large.
+     */
+    @Override
+    public void findInterconnections(List<InterconnectionQuery> queries, Consumer<InterconnectionResult> sink)
+        throws ValidationException, RestClientException {
+
+        flightServiceValidation.validateBatchSize(null == queries ? 0 : queries.size());
+        RouteGraph routeGraph = routeService.getRouteGraph();
+
+        // Either the plan or the error of every query, so the results can be handed over in the order of the queries.
+        QueryPlan[] plans = new QueryPlan[queries.size()];
+        InterconnectionResult[] failures = new InterconnectionResult[queries.size()];
+        Map<AirportPair, Set<YearMonth>> monthsByPair = new LinkedHashMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            InterconnectionQuery query = queries.get(i);
+            try {
+                QueryPlan plan = plan(i, query, routeGraph);
+                plan.pairs().forEach(pair -> monthsByPair.computeIfAbsent(pair, p -> new TreeSet<>())
+                        .addAll(plan.months));
+                plans[i] = plan;
+            } catch (ValidationException e) {
+                failures[i] = InterconnectionResult.failed(i, query, e.getMessage());
+            }
+        }
+
+        Map<AirportPair, CompletableFuture<Map<YearMonth, MonthSchedule>>> fetches = new HashMap<>();
+        monthsByPair.forEach((pair, months) -> fetches.put(pair, batchFetches.submit(
+                () -> scheduleService.getMonthSchedulesAsync(pair.getFrom(), pair.getTo(), months))));
+
+        long rounds = Math.max(1, (monthsByPair.size() + batchConcurrency - 1) / batchConcurrency);
+        long deadline = System.nanoTime() + Math.min(batchTimeout.toNanos(), timeout.toNanos() * rounds);
+        try {
+            for (int i = 0; i < plans.length; i++) {
+                sink.accept(null == plans[i] ? failures[i] : join(plans[i], fetches, deadline));
+            }
+        } finally {
+            // Only fetches left behind by a failed sink or a timeout are pending here, and are never started.
+            fetches.values().forEach(f -> f.cancel(true));
+        }
+    }
+
+    /**
+     * Gets every airport that can be reached from departure for a given date range, with the earliest arriving flights
+     * to each of them. Every route within maxStops of departure is fetched once, all of them at the same time, and a
+     * single walk over their legs finds every destination. Searches with more stops or reaching more airport pairs than
+     * configured for destinations are rejected before fetching anything.
+     * @param departure airport expressed in IATA code.
+     * @param departureDate in LocalDateTime.
+     * @param arrivalDate in LocalDateTime.
+     * @param options with the number of flights per destination as limit, and the connection limits.
+     * @return a List of DestinationResponse ordered by earliest arrival.
+     * @throws RestClientException when RestClient fails.
+     * @throws ValidationException when input data is not valid, or the search reaches too many airport pairs.
+     * @throws ServiceException when business at service layer fail.
+     */
+    @Override
+    public List<DestinationResponse> findDestinations(String departure, LocalDateTime departureDate,
+        LocalDateTime arrivalDate, SearchOptions options)
+        throws ValidationException, RestClientException, ServiceException {
+
+        flightServiceValidation.validateDestinationsParameters(departure, departureDate, arrivalDate);
+        flightServiceValidation.validateSearchOptions(options);
+        ConnectionRules rules = connectionRules.with(options);
+        flightServiceValidation.validateDestinationStops(rules.getMaxStops());
+
+        SearchTrace trace = SearchTrace.current();
+        long start = System.nanoTime();
+        RouteGraph routeGraph = routeService.getRouteGraph();
+        if (null != trace) {
+            trace.stage("routes", start);
+        }
+        start = System.nanoTime();
+        Set<AirportPair> pairs = routeService.getReachablePairs(departure, rules.getMaxStops(), routeGraph);
+        if (null != trace) {
+            trace.stage("hubs", start);
+        }
+        flightServiceValidation.validateDestinationPairs(pairs.size());
+        Map<AirportPair, List<ScheduleView>> schedulesByPair = getSchedules(pairs, departureDate, arrivalDate);
+
+        start = System.nanoTime();
+        LegIndex.Builder legs = LegIndex.builder();
+        schedulesByPair.forEach(legs::add);
+        List<DestinationResponse> destinations = new DestinationSearch(departure, rules, legs.build(),
+                null != options.getLimit() ? options.getLimit() : maxDestinationOptions).search();
+        destinationsTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (null != trace) {
+            trace.stage("join", start);
+        }
+        return destinations;
+    }
+
+    /**
+     * Finds the airport pairs and months a query needs.
+     */
+    private QueryPlan plan(int index, InterconnectionQuery query, RouteGraph routeGraph) throws ValidationException {
+        if (null == query) {
+            throw new ValidationException("Query can not be null.");
+        }
+        flightServiceValidation.validateInterconnectionsParameters(query.getDeparture(), query.getArrival(),
+                query.getDepDate(), query.getArrDate());
+        SearchOptions options = new SearchOptions(null, 0, null, null, null, null, query.getMaxStops());
+        flightServiceValidation.validateSearchOptions(options);
+
+        QueryPlan plan = new QueryPlan(index, query, connectionRules.with(options));
+        String departure = query.getDeparture();
+        String arrival = query.getArrival();
+        if (routeService.existDirectFlight(departure, arrival, routeGraph)) {
+            plan.directPair = new AirportPair(departure, arrival);
+        }
+        if (1 == plan.rules.getMaxStops()) {
+            for (ConnectionRoute cr : routeService.getConnectionRoutes(departure, arrival, routeGraph)) {
+                plan.departurePairs.add(AirportPair.of(cr.getDeparture()));
+                plan.arrivalPairs.add(AirportPair.of(cr.getArrival()));
+            }
+        } else if (plan.rules.getMaxStops() > 1) {
+            plan.departurePairs.addAll(routeService.getConnectionPairs(departure, arrival, plan.rules.getMaxStops(),
+                    routeGraph));
+        }
+        YearMonth last = YearMonth.from(query.getArrDate());
+        for (YearMonth month = YearMonth.from(query.getDepDate()); !month.isAfter(last); month = month.plusMonths(1)) {
+            plan.months.add(month);
+        }
+        return plan;
+    }
+
+    /**
+     * Waits for the pairs of a query, trims their schedules to the date range of the query and joins them.
+     */
+    private InterconnectionResult join(QueryPlan plan, Map<AirportPair, CompletableFuture<Map<YearMonth,
+        MonthSchedule>>> fetches, long deadline) {
+
+        InterconnectionQuery query = plan.query;
+        try {
+            Map<AirportPair, List<ScheduleView>> schedulesByPair = new HashMap<>();
+            for (AirportPair pair : plan.pairs()) {
+                Map<YearMonth, MonthSchedule> schedulesByMonth = await(fetches.get(pair), deadline);
+                List<MonthSchedule> schedules = new ArrayList<>(plan.months.size());
+                for (YearMonth month : plan.months) {
+                    MonthSchedule schedule = schedulesByMonth.get(month);
+                    if (null != schedule) {
+                        schedules.add(schedule);
+                    }
+                }
+                schedulesByPair.put(pair, scheduleService.filterSchedules(schedules, query.getDepDate(),
+                        query.getArrDate()));
+            }
+
+            List<FlightResponse> flights = new ArrayList<>();
+            flights.add(null == plan.directPair ? new FlightResponse(0)
+                    : toDirectFlights(query.getDeparture(), query.getArrival(), schedulesByPair.get(plan.directPair)));
+            if (1 == plan.rules.getMaxStops()) {
+                joinOneStop(plan.departurePairs, plan.arrivalPairs, schedulesByPair, plan.rules, ConnectionFilter.NONE,
+                        flights::add);
+            } else if (plan.rules.getMaxStops() > 1) {
+                joinMultiStop(query.getDeparture(), query.getArrival(), schedulesByPair, plan.rules, flights::add);
+            }
+            resultsSummary.record(flights.size());
+
+            return InterconnectionResult.of(plan.index, query, flights);
+        } catch (ServiceException e) {
+            return InterconnectionResult.failed(plan.index, query, e.getMessage());
+        }
+    }
+
+    /**
+     * Waits for the schedules of an airport pair up to the deadline of the batch, in System.nanoTime, not waiting at
+     * all once it is past. Other queries may share the fetch, so it is never cancelled here.
+     */
+    private Map<YearMonth, MonthSchedule> await(CompletableFuture<Map<YearMonth, MonthSchedule>> fetch, long deadline)
+        throws ServiceException {
+
+        try {
+            return fetch.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceException("Connecting flights could not be fetched within the time of the batch.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException("Connecting flights fetching was interrupted.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof ServiceException) {
+                throw (ServiceException) cause;
+            }
+            throw new ServiceException("Error during connecting flights fetching: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Hands the direct flights to the sink, and then every connecting flight within the given rules. One stop flights
+     * come from the hub join, skipping the ones the filter rejects, and more stops from the multi stop search.
+     */
+    private void search(String departure, String arrival, LocalDateTime departureDate, LocalDateTime arrivalDate,
+        ConnectionRules rules, ConnectionFilter filter, Consumer<FlightResponse> sink)
+        throws ValidationException, RestClientException, ServiceException {
+
+        SearchTrace trace = SearchTrace.current();
+        long start = System.nanoTime();
+        RouteGraph routeGraph = routeService.getRouteGraph();
+        if (null != trace) {
+            trace.stage("routes", start);
+        }
+        long[] results = new long[1];
+        Consumer<FlightResponse> countingSink = response -> {
+            results[0]++;
+            sink.accept(response);
+        };
+
+        // The direct route is fetched together with the connections, so the search waits only for the slowest of them.
+        AirportPair directPair = routeService.existDirectFlight(departure, arrival, routeGraph)
+                ? new AirportPair(departure, arrival) : null;
+        if (null == directPair) {
+            countingSink.accept(new FlightResponse(0));
+        }
+
+        if (1 == rules.getMaxStops()) {
+            getConnectingFlights(departure, arrival, departureDate, arrivalDate, routeGraph, directPair, rules,
+                    filter, countingSink);
+        } else if (rules.getMaxStops() > 1) {
+            getMultiStopFlights(departure, arrival, departureDate, arrivalDate, routeGraph, directPair, rules,
+                    countingSink);
+        } else if (null != directPair) {
+            countingSink.accept(getDirectFlights(departure, arrival, departureDate, arrivalDate));
+        }
+        resultsSummary.record(results[0]);
+    }
+
     /**
      * Gets all the flights that combined in two get from departure to arrival for a given date range.
      * @param departure airport expressed in IATA code.
      * @param arrival airport expressed in IATA code.
      * @param departureDate in LocalDateTime.
      * @param arrivalDate in LocalDateTime.
-     * @param allRoutes available to find connections from.
+     * @param routeGraph with the routes available to find connections from.
      * @return a List FlightResponse with Legs.
      * @throws ValidationException when input data is not valid.
      * @throws ServiceException when business at service layer fail.
      */
     List<FlightResponse> getConnectingFlights(String departure, String arrival, LocalDateTime departureDate,
-        LocalDateTime arrivalDate, List<Route> allRoutes) throws ValidationException, ServiceException {
+        LocalDateTime arrivalDate, RouteGraph routeGraph) throws ValidationException, ServiceException {
 
-        List<ConnectionRoute> connectionRoutes = routeService.getConnectionRoutes(departure, arrival, allRoutes);
         List<FlightResponse> responses = new ArrayList<>();
+        getConnectingFlights(departure, arrival, departureDate, arrivalDate, routeGraph, null, connectionRules,
+                ConnectionFilter.NONE, responses::add);
+
+        return responses;
+    }
+
+    /**
+     * Hands every flight that combined in two get from departure to arrival for a given date range to the sink, as
+     * soon as it is found. The layover and trip duration limits bound the onward legs looked at for every first leg.
+     * @param departure airport expressed in IATA code.
+     * @param arrival airport expressed in IATA code.
+     * @param departureDate in LocalDateTime.
+     * @param arrivalDate in LocalDateTime.
+     * @param routeGraph with the routes available to find connections from.
+     * @param directPair fetched together with the legs of the connections and handed to the sink first as the direct
+     * flights, or null.
+     * @param rules with the layover and trip duration limits.
+     * @param filter rejecting the connections the sink would drop, before they are built.
+     * @param sink receiving a FlightResponse with Legs per connection.
+     * @throws ValidationException when input data is not valid.
+     * @throws ServiceException when business at service layer fail.
+     */
+    void getConnectingFlights(String departure, String arrival, LocalDateTime departureDate,
+        LocalDateTime arrivalDate, RouteGraph routeGraph, AirportPair directPair, ConnectionRules rules,
+        ConnectionFilter filter, Consumer<FlightResponse> sink) throws ValidationException, ServiceException {
+
+        SearchTrace trace = SearchTrace.current();
+        long start = System.nanoTime();
+        List<ConnectionRoute> connectionRoutes = routeService.getConnectionRoutes(departure, arrival, routeGraph);
 
+        // Hubs share legs between them, so every distinct leg is fetched only once.
+        Set<AirportPair> departurePairs = new LinkedHashSet<>();
+        Set<AirportPair> arrivalPairs = new LinkedHashSet<>();
         for (ConnectionRoute cr : connectionRoutes) {
-            String depFrom = cr.getDeparture().getAirportFrom();
-            String depTo = cr.getDeparture().getAirportTo();
-            List<Leg> departureLegs = getDirectFlights(depFrom, depTo, departureDate, arrivalDate).getLegs();
-
-            String arrFrom = cr.getArrival().getAirportFrom();
-            String arrTo = cr.getArrival().getAirportTo();
-            List<Leg> arrivalLegs = getDirectFlights(arrFrom, arrTo, departureDate, arrivalDate).getLegs();
-
-            for (Leg depLeg : departureLegs) {
-                LocalDateTime depFromConnection = depLeg.getArrivalDateTime().plusHours(2);
-                List<Leg> filteredArrivalLegs = arrivalLegs.stream()
-                        .filter(leg -> leg.getDepartureDateTime().isAfter(depFromConnection))
-                        .filter(leg -> leg.getDepartureAirport().equals(depLeg.getArrivalAirport()))
-                        .collect(Collectors.toList());
-
-                for (Leg leg : filteredArrivalLegs) {
-                    responses.add(new FlightResponse(1, Stream.of(depLeg, leg).collect(Collectors.toList())));
+            departurePairs.add(AirportPair.of(cr.getDeparture()));
+            arrivalPairs.add(AirportPair.of(cr.getArrival()));
+        }
+        Set<AirportPair> pairs = new LinkedHashSet<>(departurePairs);
+        pairs.addAll(arrivalPairs);
+        if (null != directPair) {
+            pairs.add(directPair);
+        }
+        if (null != trace) {
+            trace.stage("hubs", start);
+        }
+        Map<AirportPair, List<ScheduleView>> schedulesByPair = getSchedules(pairs, departureDate, arrivalDate);
+
+        if (null != directPair) {
+            sink.accept(toDirectFlights(departure, arrival, schedulesByPair.get(directPair)));
+        }
+        joinOneStop(departurePairs, arrivalPairs, schedulesByPair, rules, filter, sink);
+    }
+
+    /**
+     * Joins the legs from the departure airport to every hub with the legs from the hub to the arrival airport, handing
+     * every connection within the rules and not rejected by the filter to the sink.
+     */
+    private void joinOneStop(Set<AirportPair> departurePairs, Set<AirportPair> arrivalPairs,
+        Map<AirportPair, List<ScheduleView>> schedulesByPair, ConnectionRules rules, ConnectionFilter filter,
+        Consumer<FlightResponse> results) {
+
+        SearchTrace trace = SearchTrace.current();
+        TimedSink<FlightResponse> sink = new TimedSink<>(results);
+        long start = System.nanoTime();
+
+        // Every arrival leg leaves from a hub, so indexing them by departure airport buckets them per hub.
+        LegIndex.Builder arrivalLegs = LegIndex.builder();
+        arrivalPairs.forEach(pair -> arrivalLegs.add(pair, schedulesByPair.get(pair)));
+        LegIndex arrivalIndex = arrivalLegs.build();
+
+        for (AirportPair pair : departurePairs) {
+            int hub = AirportIds.of(pair.getTo());
+            for (ScheduleView schedule : schedulesByPair.get(pair)) {
+                for (int i = 0; i < schedule.size(); i++) {
+                    int firstDeparture = schedule.getDeparture(i);
+                    int firstArrival = schedule.getArrival(i);
+                    int latestArrival = rules.latestArrival(firstDeparture);
+                    int end = arrivalIndex.endDepartingNotAfter(hub,
+                            rules.latestOnwardDeparture(firstDeparture, firstArrival));
+                    Leg depLeg = null;
+
+                    for (int j = arrivalIndex.firstDepartingAfter(hub, rules.earliestOnwardDeparture(firstArrival));
+                         j < end; j++) {
+                        if (arrivalIndex.arrival(j) > latestArrival
+                                || filter.rejects(firstDeparture, arrivalIndex.arrival(j), 1)) {
+                            continue;
+                        }
+                        if (null == depLeg) {
+                            depLeg = new Leg(pair.getFrom(), pair.getTo(), schedule.getDepartureDateTime(i),
+                                    schedule.getArrivalDateTime(i));
+                        }
+                        sink.accept(new FlightResponse(1, Arrays.asList(depLeg, arrivalIndex.toLeg(j))));
+                    }
                 }
             }
         }
+        long nanos = System.nanoTime() - start - sink.nanos;
+        oneStopJoinTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (null != trace) {
+            trace.stageNanos("join", nanos);
+        }
+    }
 
-        return responses;
+    /**
+     * Hands every flight with one up to maxStops stops from departure to arrival for a given date range to the sink, as
+     * soon as it is found. Only the routes that can be part of such a trip are fetched.
+     * @param departure airport expressed in IATA code.
+     * @param arrival airport expressed in IATA code.
+     * @param departureDate in LocalDateTime.
+     * @param arrivalDate in LocalDateTime.
+     * @param routeGraph with the routes available to find connections from.
+     * @param directPair fetched together with the legs of the trips and handed to the sink first as the direct
+     * flights, or null.
+     * @param rules with the stops, layover and trip duration limits.
+     * @param sink receiving a FlightResponse with Legs per connection.
+     * @throws ValidationException when input data is not valid.
+     * @throws ServiceException when business at service layer fail.
+     */
+    void getMultiStopFlights(String departure, String arrival, LocalDateTime departureDate,
+        LocalDateTime arrivalDate, RouteGraph routeGraph, AirportPair directPair, ConnectionRules rules,
+        Consumer<FlightResponse> sink) throws ValidationException, ServiceException {
+
+        SearchTrace trace = SearchTrace.current();
+        long start = System.nanoTime();
+        Set<AirportPair> pairs = routeService.getConnectionPairs(departure, arrival, rules.getMaxStops(), routeGraph);
+        Set<AirportPair> fetched = new LinkedHashSet<>(pairs);
+        if (null != directPair) {
+            fetched.add(directPair);
+        }
+        if (null != trace) {
+            trace.stage("hubs", start);
+        }
+        Map<AirportPair, List<ScheduleView>> schedulesByPair = getSchedules(fetched, departureDate, arrivalDate);
+
+        if (null != directPair) {
+            sink.accept(toDirectFlights(departure, arrival, schedulesByPair.get(directPair)));
+            schedulesByPair.keySet().retainAll(pairs);
+        }
+        joinMultiStop(departure, arrival, schedulesByPair, rules, sink);
+    }
+
+    /**
+     * Searches the trips with up to maxStops stops over the legs of every given airport pair.
+     */
+    private void joinMultiStop(String departure, String arrival, Map<AirportPair, List<ScheduleView>> schedulesByPair,
+        ConnectionRules rules, Consumer<FlightResponse> results) {
+
+        SearchTrace trace = SearchTrace.current();
+        TimedSink<FlightResponse> sink = new TimedSink<>(results);
+        long start = System.nanoTime();
+        LegIndex.Builder legs = LegIndex.builder();
+        schedulesByPair.forEach(legs::add);
+
+        new ConnectionSearch(departure, arrival, rules, legs.build()).search(sink);
+        long nanos = System.nanoTime() - start - sink.nanos;
+        multiStopJoinTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (null != trace) {
+            trace.stageNanos("join", nanos);
+        }
     }
 
     /**
@@ -121,26 +609,139 @@ public class FlightService implements FlightServiceI {
     FlightResponse getDirectFlights(String departure, String arrival, LocalDateTime departureDate,
         LocalDateTime arrivalDate) throws ValidationException, ServiceException {
 
-        List<Schedule> schedules = scheduleService.getSchedules(departure, arrival, departureDate, arrivalDate);
-        List<Leg> legs = new ArrayList<>();
+        AirportPair pair = new AirportPair(departure, arrival);
+        return toDirectFlights(departure, arrival,
+                getSchedules(Collections.singleton(pair), departureDate, arrivalDate).get(pair));
+    }
 
-        // Extract the flights from every day of every schedule.
-        for (Schedule schedule : schedules) {
-            for (Day day : schedule.getDays()) {
-                for (Flight flight : day.getFlights()) {
-                    LocalDateTime dep = getLocalDateTime(schedule, day, flight.getDepartureTime());
-                    LocalDateTime arr = getLocalDateTime(schedule, day, flight.getArrivalTime());
+    /**
+     * Builds the FlightResponse of the direct flights in the given schedules.
+     */
+    private FlightResponse toDirectFlights(String departure, String arrival, List<ScheduleView> schedules) {
+        List<Leg> legs = new ArrayList<>();
 
-                    legs.add(new Leg(departure, arrival, dep, arr));
-                }
+        // Extract the flights from every schedule.
+        for (ScheduleView schedule : schedules) {
+            for (int i = 0; i < schedule.size(); i++) {
+                legs.add(new Leg(departure, arrival, schedule.getDepartureDateTime(i), schedule.getArrivalDateTime(i)));
             }
         }
         return new FlightResponse(0, legs);
     }
 
-    private LocalDateTime getLocalDateTime(Schedule schedule, Day day, String time) {
-        return LocalDateTime.of(schedule.getYear(), schedule.getMonth(), day.getDay(),
-                Integer.valueOf(time.substring(0, 2)),
-                Integer.valueOf(time.substring(4)));
+    /**
+     * Gets the schedules of every given airport pair for a given date range. All the pairs are requested at the same
+     * time without holding a thread per pair, and the whole fetch is bounded by the configured search timeout. The
+     * search fails as soon as a pair does, and the fetches left are then no longer waited for.
+     * @param pairs of airports expressed in IATA code.
+     * @param departureDate in LocalDateTime.
+     * @param arrivalDate in LocalDateTime.
+     * @return a Map with the ScheduleViews of every given pair.
+     * @throws ValidationException when input data is not valid.
+     * @throws ServiceException when fetching fails or does not finish in time.
+     */
+    Map<AirportPair, List<ScheduleView>> getSchedules(Collection<AirportPair> pairs, LocalDateTime departureDate,
+        LocalDateTime arrivalDate) throws ValidationException, ServiceException {
+
+        SearchTrace trace = SearchTrace.current();
+        long start = System.nanoTime();
+        Map<AirportPair, CompletableFuture<List<ScheduleView>>> futures = new LinkedHashMap<>();
+        boolean fetched = false;
+        try {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            for (AirportPair pair : pairs) {
+                CompletableFuture<List<ScheduleView>> future = scheduleService.getSchedulesAsync(pair.getFrom(),
+                        pair.getTo(), departureDate, arrivalDate);
+                future.whenComplete((schedules, e) -> {
+                    if (null != e) {
+                        failed.completeExceptionally(e);
+                    }
+                });
+                futures.put(pair, future);
+            }
+            CompletableFuture.anyOf(CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])), failed)
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            fetched = true;
+        } catch (TimeoutException e) {
+            throw new ServiceException("Connecting flights could not be fetched within " + timeout + ".", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException("Connecting flights fetching was interrupted.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof ValidationException) {
+                throw (ValidationException) cause;
+            } else if (cause instanceof ServiceException) {
+                throw (ServiceException) cause;
+            }
+            throw new ServiceException("Error during connecting flights fetching: " + cause.getMessage(), cause);
+        } finally {
+            if (!fetched) {
+                futures.values().forEach(f -> f.cancel(true));
+            }
+        }
+
+        Map<AirportPair, List<ScheduleView>> schedulesByPair = new LinkedHashMap<>();
+        futures.forEach((pair, future) -> schedulesByPair.put(pair, future.join()));
+        fetchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (null != trace) {
+            trace.stage("fetch", start);
+        }
+
+        return schedulesByPair;
+    }
+
+    /**
+     * The airport pairs and months a query of a batch needs. With one stop, the departure pairs lead to the hubs and
+     * the arrival pairs leave them; with more, the departure pairs hold every pair of the trips.
+     */
+    private static class QueryPlan {
+
+        private final int index;
+        private final InterconnectionQuery query;
+        private final ConnectionRules rules;
+        private AirportPair directPair;
+        private final Set<AirportPair> departurePairs = new LinkedHashSet<>();
+        private final Set<AirportPair> arrivalPairs = new LinkedHashSet<>();
+        private final List<YearMonth> months = new ArrayList<>();
+
+        QueryPlan(int index, InterconnectionQuery query, ConnectionRules rules) {
+            this.index = index;
+            this.query = query;
+            this.rules = rules;
+        }
+
+        Set<AirportPair> pairs() {
+            Set<AirportPair> pairs = new LinkedHashSet<>(departurePairs);
+            pairs.addAll(arrivalPairs);
+            if (null != directPair) {
+                pairs.add(directPair);
+            }
+            return pairs;
+        }
+    }
+
+    /**
+     * Sink summing up the time spent handing results on, so a join can be timed without the time it takes to write
+     * them to the client.
+     */
+    private static class TimedSink<T> implements Consumer<T> {
+
+        private final Consumer<T> sink;
+        private long nanos;
+
+        TimedSink(Consumer<T> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void accept(T result) {
+            long start = System.nanoTime();
+            try {
+                sink.accept(result);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
     }
 }
@@ -0,0 +1,178 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.model.AirportIds;
+import com.ryanair.flights.model.AirportPair;
+import com.ryanair.flights.model.EpochMinutes;
+import com.ryanair.flights.model.Leg;
+import com.ryanair.flights.model.ScheduleView;
+
+import java.util.*;
+
+/**
+ * Legs kept as parallel int arrays of airport ids and EpochMinutes, bucketed by departure airport and sorted by
+ * departure time, so the onward legs of a connection are found with a binary search over primitives. A Leg object is
+ * only built for the legs of a result.
+ */
+class LegIndex {
+
+    private final int[] from;
+    private final int[] to;
+    private final int[] departures;
+    private final int[] arrivals;
+    /**
+     * Position of the first leg of every departure airport id, the legs of id i being in [bucketStart[i],
+     * bucketStart[i + 1]).
+     */
+    private final int[] bucketStart;
+
+    private LegIndex(Builder builder) {
+        int size = builder.size;
+        int airports = AirportIds.size();
+
+        // Sorts by departure with a primitive sort of the departure packed with its position...
+        long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = ((long) builder.departures[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        // ...and then buckets by departure airport with a stable counting sort.
+        bucketStart = new int[airports + 1];
+        for (int i = 0; i < size; i++) {
+            bucketStart[builder.from[i] + 1]++;
+        }
+        for (int i = 0; i < airports; i++) {
+            bucketStart[i + 1] += bucketStart[i];
+        }
+        int[] next = Arrays.copyOf(bucketStart, airports);
+
+        from = new int[size];
+        to = new int[size];
+        departures = new int[size];
+        arrivals = new int[size];
+        for (long packed : order) {
+            int i = (int) packed;
+            int position = next[builder.from[i]]++;
+            from[position] = builder.from[i];
+            to[position] = builder.to[i];
+            departures[position] = builder.departures[i];
+            arrivals[position] = builder.arrivals[i];
+        }
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    int size() {
+        return departures.length;
+    }
+
+    int from(int i) {
+        return from[i];
+    }
+
+    int to(int i) {
+        return to[i];
+    }
+
+    int departure(int i) {
+        return departures[i];
+    }
+
+    int arrival(int i) {
+        return arrivals[i];
+    }
+
+    /**
+     * @return the Leg at the given position.
+     */
+    Leg toLeg(int i) {
+        return new Leg(AirportIds.code(from[i]), AirportIds.code(to[i]), EpochMinutes.toLocalDateTime(departures[i]),
+                EpochMinutes.toLocalDateTime(arrivals[i]));
+    }
+
+    /**
+     * Finds the position of the first leg departing from an airport strictly after the given time.
+     * @param airport id.
+     * @param after exclusive lower bound for the departure, in EpochMinutes.
+     * @return a position within the bucket of the airport, its end when no leg matches.
+     */
+    int firstDepartingAfter(int airport, int after) {
+        if (airport < 0 || airport >= bucketStart.length - 1) {
+            return 0;
+        }
+        return search(bucketStart[airport], bucketStart[airport + 1], after);
+    }
+
+    /**
+     * Finds the end of the legs departing from an airport not later than the given time.
+     * @param airport id.
+     * @param notAfter inclusive upper bound for the departure, in EpochMinutes.
+     * @return the exclusive end position within the bucket of the airport.
+     */
+    int endDepartingNotAfter(int airport, int notAfter) {
+        if (airport < 0 || airport >= bucketStart.length - 1) {
+            return 0;
+        }
+        return search(bucketStart[airport], bucketStart[airport + 1], notAfter);
+    }
+
+    /**
+     * Finds the position of the first leg departing strictly after the given time, within [low, high).
+     */
+    private int search(int low, int high, int after) {
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departures[mid] > after) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Collects legs into growable primitive arrays.
+     */
+    static class Builder {
+
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int[] departures = new int[16];
+        private int[] arrivals = new int[16];
+        private int size;
+
+        Builder add(int fromAirport, int toAirport, int departure, int arrival) {
+            if (size == departures.length) {
+                int capacity = size * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                departures = Arrays.copyOf(departures, capacity);
+                arrivals = Arrays.copyOf(arrivals, capacity);
+            }
+            from[size] = fromAirport;
+            to[size] = toAirport;
+            departures[size] = departure;
+            arrivals[size] = arrival;
+            size++;
+            return this;
+        }
+
+        Builder add(AirportPair pair, Collection<ScheduleView> schedules) {
+            int fromAirport = AirportIds.of(pair.getFrom());
+            int toAirport = AirportIds.of(pair.getTo());
+            for (ScheduleView schedule : schedules) {
+                for (int i = 0; i < schedule.size(); i++) {
+                    add(fromAirport, toAirport, schedule.getDeparture(i), schedule.getArrival(i));
+                }
+            }
+            return this;
+        }
+
+        LegIndex build() {
+            return new LegIndex(this);
+        }
+    }
+}
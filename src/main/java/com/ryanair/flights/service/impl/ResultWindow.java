@@ -0,0 +1,140 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.model.EpochMinutes;
+import com.ryanair.flights.model.FlightResponse;
+import com.ryanair.flights.model.SearchOptions;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the page of FlightResponse selected by the SearchOptions while the search hands them over. With a limit only
+ * the best offset + limit results are held, in a heap whose head is the worst of them, so the full result set is never
+ * built. Once full, the sort key of the worst result is also kept in EpochMinutes, so a connection that would not make
+ * it is rejected before it is built.
+ */
+class ResultWindow implements Consumer<FlightResponse>, ConnectionFilter {
+
+    private static final Comparator<FlightResponse> BY_DEPARTURE = Comparator.comparing(ResultWindow::departure);
+    private static final Comparator<FlightResponse> BY_ARRIVAL = Comparator.comparing(ResultWindow::arrival);
+    private static final Comparator<FlightResponse> BY_DURATION = Comparator.comparing(
+            r -> Duration.between(departure(r), arrival(r)));
+
+    private final SearchOptions.Sort sort;
+    private final Comparator<FlightResponse> order;
+    private final int offset;
+    private final int capacity;
+    private final Queue<FlightResponse> results;
+    private int worstKey;
+    private int worstTieBreak;
+    private int worstStops;
+
+    ResultWindow(SearchOptions options) {
+        this.sort = options.getSort();
+        this.order = comparator(sort);
+        this.offset = options.getOffset();
+
+        if (null == options.getLimit()) {
+            this.capacity = -1;
+            this.results = new ArrayDeque<>();
+        } else {
+            this.capacity = (int) Math.min((long) offset + options.getLimit(), Integer.MAX_VALUE);
+            this.results = new PriorityQueue<>(Math.min(capacity, 1024) + 1, order.reversed());
+        }
+    }
+
+    @Override
+    public void accept(FlightResponse response) {
+        if (capacity < 0 || results.size() < capacity) {
+            results.add(response);
+        } else if (capacity > 0 && order.compare(response, results.peek()) < 0) {
+            results.poll();
+            results.add(response);
+        } else {
+            return;
+        }
+        if (results.size() == capacity) {
+            FlightResponse worst = results.peek();
+            int departure = EpochMinutes.of(departure(worst));
+            int arrival = EpochMinutes.of(arrival(worst));
+            worstKey = key(departure, arrival);
+            worstTieBreak = tieBreak(departure, arrival);
+            worstStops = worst.getStops();
+        }
+    }
+
+    /**
+     * Tells whether a connection would be dropped by the window, in the same order as accept without building it.
+     * @param departure of the first leg, in EpochMinutes.
+     * @param arrival of the last leg, in EpochMinutes.
+     * @param stops of the connection.
+     * @return true when the window is full and the connection does not rank before its worst result.
+     */
+    @Override
+    public boolean rejects(int departure, int arrival, int stops) {
+        if (capacity < 0 || results.size() < capacity) {
+            return false;
+        } else if (0 == capacity) {
+            return true;
+        }
+        int compared = Integer.compare(key(departure, arrival), worstKey);
+        if (0 == compared) {
+            compared = Integer.compare(tieBreak(departure, arrival), worstTieBreak);
+        }
+        if (0 == compared) {
+            compared = Integer.compare(stops, worstStops);
+        }
+        return compared >= 0;
+    }
+
+    /**
+     * @return the selected page of FlightResponse, in order.
+     */
+    List<FlightResponse> getResults() {
+        List<FlightResponse> sorted = new ArrayList<>(results);
+        sorted.sort(order);
+
+        return offset >= sorted.size() ? Collections.emptyList() : sorted.subList(offset, sorted.size());
+    }
+
+    /**
+     * The first key of the sort, as the comparator orders it.
+     */
+    private int key(int departure, int arrival) {
+        if (SearchOptions.Sort.ARRIVAL == sort) {
+            return arrival;
+        } else if (SearchOptions.Sort.DURATION == sort) {
+            return arrival - departure;
+        }
+        return departure;
+    }
+
+    /**
+     * The second key of the sort, as the comparator orders it.
+     */
+    private int tieBreak(int departure, int arrival) {
+        return null == sort || SearchOptions.Sort.DEPARTURE == sort ? arrival : departure;
+    }
+
+    /**
+     * Orders by the given sort, earliest departure by default, then by the rest so the order is stable.
+     */
+    private static Comparator<FlightResponse> comparator(SearchOptions.Sort sort) {
+        if (SearchOptions.Sort.ARRIVAL == sort) {
+            return BY_ARRIVAL.thenComparing(BY_DEPARTURE).thenComparing(FlightResponse::getStops);
+        } else if (SearchOptions.Sort.DURATION == sort) {
+            return BY_DURATION.thenComparing(BY_DEPARTURE).thenComparing(FlightResponse::getStops);
+        }
+        return BY_DEPARTURE.thenComparing(BY_ARRIVAL).thenComparing(FlightResponse::getStops);
+    }
+
+    private static LocalDateTime departure(FlightResponse response) {
+        return response.getLegs().get(0).getDepartureDateTime();
+    }
+
+    private static LocalDateTime arrival(FlightResponse response) {
+        return response.getLegs().get(response.getLegs().size() - 1).getArrivalDateTime();
+    }
+}
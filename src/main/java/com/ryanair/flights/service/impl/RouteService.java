@@ -2,24 +2,45 @@ package com.ryanair.flights.service.impl;
 
 import com.ryanair.flights.client.RouteClient;
 import com.ryanair.flights.exception.RestClientException;
+import com.ryanair.flights.model.AirportPair;
 import com.ryanair.flights.model.ConnectionRoute;
 import com.ryanair.flights.model.Route;
+import com.ryanair.flights.model.RouteGraph;
 import com.ryanair.flights.service.RouteServiceI;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 public class RouteService implements RouteServiceI {
 
     private final RouteClient routeClient;
+    private final AtomicReference<RouteGraph> routeGraph = new AtomicReference<>();
+    private final Timer fetchTimer;
+    private final Timer fetchErrorTimer;
 
     @Autowired
-    public RouteService(RouteClient routeClient) {
+    public RouteService(RouteClient routeClient, MeterRegistry meterRegistry) {
         this.routeClient = routeClient;
+        this.fetchTimer = fetchTimer(meterRegistry, "success");
+        this.fetchErrorTimer = fetchTimer(meterRegistry, "error");
+    }
+
+    private static Timer fetchTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("flight.route.fetch")
+                .description("Time spent fetching and filtering every route")
+                .tag("outcome", outcome)
+                .register(registry);
     }
 
     /**
@@ -29,47 +50,196 @@ public class RouteService implements RouteServiceI {
      */
     @Override
     public List<Route> getRoutes() throws RestClientException {
-        return routeClient.getRoutes().stream()
-                .filter(r -> null == r.getConnectingAirport() && "RYANAIR".equalsIgnoreCase(r.getOperator()))
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            List<Route> routes = routeClient.getRoutes().stream()
+                    .filter(r -> Route.isDirectRyanair(r.getConnectingAirport(), r.getOperator()))
+                    .collect(Collectors.toList());
+            fetchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return routes;
+        } catch (RestClientException e) {
+            fetchErrorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the current RouteGraph, fetching the routes only if no RouteGraph was built yet.
+     * @return a RouteGraph with all the routes available.
+     * @throws RestClientException in case communication with API fails.
+     */
+    @Override
+    public RouteGraph getRouteGraph() throws RestClientException {
+        RouteGraph current = routeGraph.get();
+        if (null != current) {
+            return current;
+        }
+
+        synchronized (routeGraph) {
+            current = routeGraph.get();
+            if (null == current) {
+                current = RouteGraph.of(getRoutes());
+                routeGraph.set(current);
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Gets the current RouteGraph without fetching the routes.
+     * @return Optional of the current RouteGraph, empty if none was built yet.
+     */
+    @Override
+    public Optional<RouteGraph> getCurrentRouteGraph() {
+        return Optional.ofNullable(routeGraph.get());
+    }
+
+    /**
+     * Uses the given RouteGraph until the next refresh, unless a RouteGraph was already built.
+     * @param restored RouteGraph, usually read from a snapshot.
+     * @return true if the given RouteGraph is now the current one, else false.
+     */
+    @Override
+    public boolean restoreRouteGraph(RouteGraph restored) {
+        return routeGraph.compareAndSet(null, restored);
+    }
+
+    /**
+     * Rebuilds the RouteGraph in the background and swaps it with the current one. In case of failure the current
+     * RouteGraph is kept.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${client.route.refresh-interval-ms:900000}",
+            initialDelayString = "${client.route.refresh-interval-ms:900000}")
+    public void refreshRouteGraph() {
+        try {
+            RouteGraph refreshed = RouteGraph.of(getRoutes());
+            routeGraph.set(refreshed);
+            log.info("RouteService.refreshRouteGraph: RouteGraph refreshed with " + refreshed.size() + " routes.");
+        } catch (RestClientException e) {
+            log.warn("RouteService.refreshRouteGraph: keeping current RouteGraph. " + e.getMessage(), e);
+        }
     }
 
     /**
      * Gets all the routes that connect the given airports.
      * @param departure airport expressed in IATA code.
      * @param arrival airport expressed in IATA code.
-     * @param allRoutes available.
+     * @param routeGraph with the routes available.
      * @return a List of ConnectionRoute.
      */
     @Override
-    public List<ConnectionRoute> getConnectionRoutes(String departure, String arrival, List<Route> allRoutes) {
-        List<Route> departureRoutes = allRoutes.stream().filter(r -> r.getAirportFrom().equals(departure)
-                && !r.getAirportTo().equals(arrival)).collect(Collectors.toList());
-        List<Route> arrivalRoutes = allRoutes.stream().filter(r -> !r.getAirportFrom().equals(departure)
-                && r.getAirportTo().equals(arrival)).collect(Collectors.toList());
-
+    public List<ConnectionRoute> getConnectionRoutes(String departure, String arrival, RouteGraph routeGraph) {
         List<ConnectionRoute> response = new ArrayList<>();
 
-        for (Route dep : departureRoutes) {
-            for (Route arr : arrivalRoutes) {
-                if (dep.getAirportTo().equals(arr.getAirportFrom())) {
-                    response.add(new ConnectionRoute(dep, arr));
-                }
+        for (Route dep : routeGraph.getRoutesFrom(departure)) {
+            if (dep.getAirportTo().equalsIgnoreCase(arrival)) {
+                continue;
+            }
+            Route arr = routeGraph.getRoute(dep.getAirportTo(), arrival);
+            if (null != arr) {
+                response.add(new ConnectionRoute(dep, arr));
             }
         }
         return response;
     }
 
+    /**
+     * Gets every route that is part of a trip between the given airports with up to the given number of stops,
+     * without visiting an airport twice. A route is kept when the hops to reach its origin, plus itself, plus the hops
+     * from its destination to the arrival fit within maxStops + 1 legs.
+     * @param departure airport expressed in IATA code.
+     * @param arrival airport expressed in IATA code.
+     * @param maxStops maximum number of stops of a trip.
+     * @param routeGraph with the routes available.
+     * @return a Set of AirportPair that can be empty.
+     */
+    @Override
+    public Set<AirportPair> getConnectionPairs(String departure, String arrival, int maxStops,
+                                               RouteGraph routeGraph) {
+        int maxLegs = maxStops + 1;
+        String from = departure.toUpperCase(Locale.ROOT);
+        String to = arrival.toUpperCase(Locale.ROOT);
+        Map<String, Integer> hopsFromDeparture = getHops(from, maxLegs, routeGraph::getRoutesFrom, Route::getAirportTo);
+        Map<String, Integer> hopsToArrival = getHops(to, maxLegs, routeGraph::getRoutesTo, Route::getAirportFrom);
+
+        Set<AirportPair> pairs = new LinkedHashSet<>();
+        hopsFromDeparture.forEach((airport, hops) -> {
+            if (airport.equals(to)) {
+                return;
+            }
+            for (Route route : routeGraph.getRoutesFrom(airport)) {
+                String next = route.getAirportTo().toUpperCase(Locale.ROOT);
+                Integer hopsLeft = hopsToArrival.get(next);
+
+                if (null != hopsLeft && hops + 1 + hopsLeft <= maxLegs && !next.equals(from)
+                        && !(airport.equals(from) && next.equals(to))) {
+                    pairs.add(AirportPair.of(route));
+                }
+            }
+        });
+        return pairs;
+    }
+
+    /**
+     * Gets every route that can be a leg of a trip from the given airport with up to the given number of stops, that
+     * is every route leaving an airport reached within maxStops routes. Routes back to the departure are not included.
+     * @param departure airport expressed in IATA code.
+     * @param maxStops maximum number of stops of a trip.
+     * @param routeGraph with the routes available.
+     * @return a Set of AirportPair that can be empty.
+     */
+    @Override
+    public Set<AirportPair> getReachablePairs(String departure, int maxStops, RouteGraph routeGraph) {
+        String from = departure.toUpperCase(Locale.ROOT);
+        Map<String, Integer> hopsFromDeparture = getHops(from, maxStops, routeGraph::getRoutesFrom,
+                Route::getAirportTo);
+
+        Set<AirportPair> pairs = new LinkedHashSet<>();
+        for (String airport : hopsFromDeparture.keySet()) {
+            for (Route route : routeGraph.getRoutesFrom(airport)) {
+                if (!route.getAirportTo().equalsIgnoreCase(from)) {
+                    pairs.add(AirportPair.of(route));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Breadth first search of the fewest routes between an airport and every airport reachable within maxHops.
+     */
+    private Map<String, Integer> getHops(String start, int maxHops, Function<String, Collection<Route>> routes,
+                                         Function<Route, String> next) {
+        Map<String, Integer> hops = new HashMap<>();
+        hops.put(start, 0);
+        Deque<String> queue = new ArrayDeque<>(Collections.singletonList(start));
+
+        while (!queue.isEmpty()) {
+            String airport = queue.poll();
+            int depth = hops.get(airport);
+            if (depth == maxHops) {
+                continue;
+            }
+            for (Route route : routes.apply(airport)) {
+                String reached = next.apply(route).toUpperCase(Locale.ROOT);
+                if (null == hops.putIfAbsent(reached, depth + 1)) {
+                    queue.add(reached);
+                }
+            }
+        }
+        return hops;
+    }
+
     /**
      * Finds if a direct flight exists for the given routes.
      * @param departure airport expressed in IATA code.
      * @param arrival airport expressed in IATA code.
-     * @param allRoutes to search for flights.
+     * @param routeGraph to search for flights.
      * @return true if a direct flight exists, else false.
      */
     @Override
-    public boolean existDirectFlight(String departure, String arrival, List<Route> allRoutes) {
-        return allRoutes.stream().anyMatch(r -> r.getAirportFrom().equalsIgnoreCase(departure)
-                && r.getAirportTo().equalsIgnoreCase(arrival));
+    public boolean existDirectFlight(String departure, String arrival, RouteGraph routeGraph) {
+        return routeGraph.hasRoute(departure, arrival);
     }
 }
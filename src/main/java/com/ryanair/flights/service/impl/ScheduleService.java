@@ -4,19 +4,25 @@ import com.ryanair.flights.client.ScheduleClient;
 import com.ryanair.flights.exception.RestClientException;
 import com.ryanair.flights.exception.ServiceException;
 import com.ryanair.flights.exception.ValidationException;
-import com.ryanair.flights.model.Day;
-import com.ryanair.flights.model.Flight;
-import com.ryanair.flights.model.Schedule;
+import com.ryanair.flights.model.EpochMinutes;
+import com.ryanair.flights.model.MonthSchedule;
+import com.ryanair.flights.model.ScheduleView;
+import com.ryanair.flights.model.SearchTrace;
 import com.ryanair.flights.service.ScheduleServiceI;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -25,28 +31,30 @@ import java.util.stream.IntStream;
 public class ScheduleService implements ScheduleServiceI {
 
     private final ScheduleClient scheduleClient;
-    private final ForkJoinPool threadPool;
+    private final Timer filterTimer;
 
     @Autowired
-    public ScheduleService(ScheduleClient scheduleClient, ForkJoinPool threadPool) {
+    public ScheduleService(ScheduleClient scheduleClient, MeterRegistry meterRegistry) {
         this.scheduleClient = scheduleClient;
-        this.threadPool = threadPool != null ? threadPool : new ForkJoinPool(4);
+        this.filterTimer = Timer.builder("flight.schedule.filter")
+                .description("Time spent trimming the schedules of a route to the date range")
+                .register(meterRegistry);
     }
 
     /**
-     * Gets a List o Schedule for the given date range.
+     * Gets a List of ScheduleView for the given date range.
      * @param departure airport expressed in IATA code.
      * @param arrival airport expressed in IATA code.
      * @param departureDate expressed in LocalDateTime.
      * @param arrivalDate expressed in LocalDateTime.
-     * @return a List of Schedule for the given date range.
+     * @return a List of ScheduleView trimmed to the given date range.
      * @throws ValidationException when date validation fails.
      */
     @Override
-    public List<Schedule> getSchedules(String departure, String arrival, LocalDateTime departureDate,
+    public List<ScheduleView> getSchedules(String departure, String arrival, LocalDateTime departureDate,
         LocalDateTime arrivalDate) throws ValidationException, ServiceException {
 
-        List<Schedule> schedules;
+        List<MonthSchedule> schedules;
         try {
             schedules = departureDate.getYear() == arrivalDate.getYear()
                     ? getSchedulesForSameYear(departure, arrival, departureDate, arrivalDate)
@@ -54,105 +62,124 @@ public class ScheduleService implements ScheduleServiceI {
         } catch (ExecutionException | InterruptedException e) {
             throw new ServiceException("Error during Schedule fetching: " + e.getMessage(), e);
         }
+        return filterSchedules(schedules, departureDate, arrivalDate);
+    }
 
-        return schedules.stream().map(s -> filterNonValid(s, departureDate, arrivalDate))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
+    /**
+     * Gets a List of ScheduleView for the given date range without waiting for it. Every month is requested at once
+     * and the views are built once the last one is done, so no thread is held while the months are fetched.
+     * @param departure airport expressed in IATA code.
+     * @param arrival airport expressed in IATA code.
+     * @param departureDate expressed in LocalDateTime.
+     * @param arrivalDate expressed in LocalDateTime.
+     * @return a CompletableFuture of the List of ScheduleView trimmed to the given date range.
+     * @throws ValidationException when date validation fails.
+     */
+    @Override
+    public CompletableFuture<List<ScheduleView>> getSchedulesAsync(String departure, String arrival,
+        LocalDateTime departureDate, LocalDateTime arrivalDate) throws ValidationException {
+
+        if (arrivalDate.isBefore(departureDate)) {
+            String msg = "Date range is not valid for departure: " + departureDate + "and arrival: "+ arrivalDate + ".";
+            throw new ValidationException(msg);
+        }
+        return fetchSchedulesAsync(departure, arrival, getMonths(departureDate, arrivalDate))
+                .thenApply(schedules -> filterSchedules(schedules.values(), departureDate, arrivalDate));
     }
 
     /**
-     * Removes days and flights from a Schedule that are not within expected date range.
+     * Gets the MonthSchedule of every given month without waiting for them, all of them requested at once. Months that
+     * fail to be fetched are skipped.
+     * @param departure airport expressed in IATA code.
+     * @param arrival airport expressed in IATA code.
+     * @param months to be fetched.
+     * @return a CompletableFuture of a Map with the MonthSchedule of every month that has one, in the order of the
+     * given months.
+     */
+    @Override
+    public CompletableFuture<Map<YearMonth, MonthSchedule>> getMonthSchedulesAsync(String departure, String arrival,
+        Collection<YearMonth> months) {
+
+        return fetchSchedulesAsync(departure, arrival, months);
+    }
+
+    /**
+     * Trims already fetched MonthSchedules to the given date range.
+     * @param schedules to be trimmed, all of them within the date range months.
+     * @param departureDate expressed in LocalDateTime.
+     * @param arrivalDate expressed in LocalDateTime.
+     * @return a List of ScheduleView trimmed to the given date range.
+     */
+    @Override
+    public List<ScheduleView> filterSchedules(Collection<MonthSchedule> schedules, LocalDateTime departureDate,
+        LocalDateTime arrivalDate) {
+
+        long start = System.nanoTime();
+        List<ScheduleView> views = new ArrayList<>(schedules.size());
+        for (MonthSchedule schedule : schedules) {
+            filterNonValid(schedule, departureDate, arrivalDate).ifPresent(views::add);
+        }
+        filterTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        return views;
+    }
+
+    /**
+     * Narrows a MonthSchedule down to the flights within expected date range. The MonthSchedule is shared through the
+     * cache, so it is never modified: the result is a view over it.
      * @param schedule to be filtered.
      * @param departure expressed in LocalDateTime.
      * @param arrival expressed in LocalDateTime.
-     * @return Optional of a Schedule that can be empty if Schedule is not within expected date range.
+     * @return Optional of a ScheduleView that can be empty if Schedule is not within expected date range.
      */
-    Optional<Schedule> filterNonValid(Schedule schedule, LocalDateTime departure, LocalDateTime arrival) {
+    Optional<ScheduleView> filterNonValid(MonthSchedule schedule, LocalDateTime departure, LocalDateTime arrival) {
         int scheduleYear = schedule.getYear();
         int scheduleMonth = schedule.getMonth();
-        int departureYear = departure.getYear();
-        int arrivalYear = arrival.getYear();
-        int departureMonth = departure.getMonthValue();
-        int arrivalMonth = arrival.getMonthValue();
 
         if (isValidSchedule(schedule, departure, arrival)) {
-            String errorMessage = "Schedule: " + schedule.toString() + ". Date range not valid for departure: "
-                    + departure.toString() + "and arrival: "+ arrival.toString() + ".";
-            log.warn(errorMessage);
+            log.warn("Schedule: {}-{}. Date range not valid for departure: {} and arrival: {}.", scheduleYear,
+                    scheduleMonth, departure, arrival);
             return Optional.empty();
         }
 
-        // Clean days and flights before departure.
-        if (scheduleYear == departureYear && scheduleMonth == departureMonth) {
-            List<Day> days = removeDaysBeforeDeparture(schedule, departure);
-
-            if (!days.isEmpty()) {
-                List<Flight> flights = removeFlightsBeforeDeparture(departure, days);
-                days.get(0).setFlights(flights);
-            }
-            schedule.setDays(days);
-
-            // Clean days and flights after arrival.
-        } else if (scheduleYear == arrivalYear && scheduleMonth == arrivalMonth) {
-            List<Day> days = removeDaysAfterArrival(schedule, arrival);
-
-            if (!days.isEmpty()) {
-                List<Flight> flights = removeFlightsAfterArrival(departure, days);
-                days.get(days.size() - 1).setFlights(flights);
-            }
-            schedule.setDays(days);
-        }
-        return Optional.of(schedule);
-    }
-
-    private List<Flight> removeFlightsAfterArrival(LocalDateTime departure, List<Day> days) {
-        return days.get(days.size() - 1).getFlights().stream().filter(f -> {
-            Integer hours = Integer.valueOf(f.getDepartureTime().substring(0,2));
-            Integer minutes = Integer.valueOf(f.getDepartureTime().substring(3));
-            return LocalTime.of(hours, minutes).isBefore(departure.toLocalTime());
-        }).collect(Collectors.toList());
-    }
-
-    private List<Day> removeDaysAfterArrival(Schedule schedule, LocalDateTime arrival) {
-        return schedule.getDays().stream().filter(d -> d.getDay() <= arrival.getDayOfMonth())
-                .sorted(Comparator.comparingInt(Day::getDay)).collect(Collectors.toList());
-    }
+        boolean departureMonth = scheduleYear == departure.getYear() && scheduleMonth == departure.getMonthValue();
+        boolean arrivalMonth = scheduleYear == arrival.getYear() && scheduleMonth == arrival.getMonthValue();
 
-    private List<Flight> removeFlightsBeforeDeparture(LocalDateTime departure, List<Day> days) {
-        return days.get(0).getFlights().stream().filter(f -> {
-            Integer hours = Integer.valueOf(f.getDepartureTime().substring(0,2));
-            Integer minutes = Integer.valueOf(f.getDepartureTime().substring(3));
-            return LocalTime.of(hours, minutes).isAfter(departure.toLocalTime());
-        }).collect(Collectors.toList());
-    }
+        // Months fully inside the date range need no trimming.
+        if (!departureMonth && !arrivalMonth) {
+            return Optional.of(schedule.view());
+        }
 
-    private List<Day> removeDaysBeforeDeparture(Schedule schedule, LocalDateTime departure) {
-        return schedule.getDays().stream().filter(d -> d.getDay() >= departure.getDayOfMonth())
-                .sorted(Comparator.comparingInt(Day::getDay)).collect(Collectors.toList());
+        // Flights are sorted by departure, so both cut points are found by binary search.
+        int from = departureMonth ? schedule.firstDepartingAfter(EpochMinutes.of(departure)) : 0;
+        int to = arrivalMonth
+                ? Math.max(from, schedule.firstDepartingAfter(EpochMinutes.ceiling(arrival) - 1))
+                : schedule.size();
+        return Optional.of(schedule.view(from, to));
     }
 
     /**
      * Validates if a Schedule falls between a give range of dates.
      */
-    private boolean isValidSchedule(Schedule schedule, LocalDateTime departure, LocalDateTime arrival) {
+    private boolean isValidSchedule(MonthSchedule schedule, LocalDateTime departure, LocalDateTime arrival) {
         return (schedule.getYear() < departure.getYear() || schedule.getYear() > arrival.getYear())
                 || (schedule.getYear() == departure.getYear() && schedule.getMonth() < departure.getMonthValue())
                 || (schedule.getYear() == arrival.getYear() && schedule.getMonth() > arrival.getMonthValue());
     }
 
     /**
-     * Finds all the schedules per month for a range between two months of different years.
+     * Finds all the schedules per month for a range between two months of different years. Every month of every year
+     * is requested at once and joined a single time, so crossing a year boundary adds no latency.
      * @param departure airport expressed in IATA code.
      * @param arrival airport expressed in IATA code.
      * @param departureDate in LocalDateTime.
      * @param arrivalDate in LocalDateTime.
-     * @return a List of Schedule.
+     * @return a List of MonthSchedule.
      * @throws ValidationException when date validation fails.
      * @throws ExecutionException when parallel processing fails.
      * @throws InterruptedException when parallel processing fails.
      */
-    List<Schedule> getSchedulesForSeveralYears(String departure, String arrival, LocalDateTime departureDate,
+    List<MonthSchedule> getSchedulesForSeveralYears(String departure, String arrival, LocalDateTime departureDate,
         LocalDateTime arrivalDate) throws ValidationException, ExecutionException, InterruptedException {
 
         List<Integer> years = getRange(departureDate.getYear(), arrivalDate.getYear());
@@ -160,24 +187,7 @@ public class ScheduleService implements ScheduleServiceI {
             String msg = "Date range is not valid for departure: " + departureDate + "and arrival: "+ arrivalDate + ".";
             throw new ValidationException(msg);
         }
-        int firstYear = years.get(0);
-        int lastYear = years.get(years.size() - 1);
-        List<Integer> inBetweenYears = years.size() > 2 ? getRange(firstYear + 1, lastYear - 1) : new ArrayList<>();
-
-        // Get schedules for first year.
-        List<Schedule> schedules = new ArrayList<>(getSchedulesForSameYear(departure, arrival, departureDate,
-                LocalDateTime.of(firstYear, 12, 31, 23, 59)));
-
-        // Get schedules for in between years.
-        for (Integer y : inBetweenYears) {
-            schedules.addAll(getSchedulesForSameYear(departure, arrival, LocalDateTime.of(y, 1, 1, 0, 0),
-                    LocalDateTime.of(y, 12, 31, 23, 59)));
-        }
-        // Get schedules for last year.
-        schedules.addAll(getSchedulesForSameYear(departure, arrival, LocalDateTime.of(lastYear, 1, 1, 0, 0),
-                arrivalDate));
-
-        return schedules;
+        return new ArrayList<>(fetchSchedules(departure, arrival, getMonths(departureDate, arrivalDate)).values());
     }
 
     /**
@@ -186,29 +196,89 @@ public class ScheduleService implements ScheduleServiceI {
      * @param arrival airport expressed in IATA code.
      * @param departureDate in LocalDateTime.
      * @param arrivalDate in LocalDateTime.
-     * @return a List of Schedule.
+     * @return a List of MonthSchedule.
      */
-    List<Schedule> getSchedulesForSameYear(String departure, String arrival, LocalDateTime departureDate,
+    List<MonthSchedule> getSchedulesForSameYear(String departure, String arrival, LocalDateTime departureDate,
         LocalDateTime arrivalDate) throws ValidationException, ExecutionException, InterruptedException {
 
         if (arrivalDate.isBefore(departureDate)) {
             String msg = "Date range is not valid for departure: " + departureDate + "and arrival: "+ arrivalDate + ".";
             throw new ValidationException(msg);
         }
+        return new ArrayList<>(fetchSchedules(departure, arrival, getMonths(departureDate, arrivalDate)).values());
+    }
+
+    /**
+     * Requests the schedule of every given month at once and waits for all of them a single time. Months that fail
+     * to be fetched are skipped.
+     * @return a Map with the MonthSchedule of every month that has one, in the order of the given months.
+     */
+    private Map<YearMonth, MonthSchedule> fetchSchedules(String departure, String arrival,
+        Collection<YearMonth> months) throws ExecutionException, InterruptedException {
+
+        return fetchSchedulesAsync(departure, arrival, months).get();
+    }
+
+    /**
+     * Requests the schedule of every given month at once, completing when all of them are done. Months that fail to
+     * be fetched are skipped.
+     * @return a CompletableFuture of a Map with the MonthSchedule of every month that has one, in the order of the
+     * given months.
+     */
+    private CompletableFuture<Map<YearMonth, MonthSchedule>> fetchSchedulesAsync(String departure, String arrival,
+        Collection<YearMonth> months) {
+
+        SearchTrace trace = SearchTrace.current();
+
+        // The client decides whether a thread is held per call.
+        Map<YearMonth, CompletableFuture<Optional<MonthSchedule>>> schedules = new LinkedHashMap<>();
+        for (YearMonth month : months) {
+            schedules.put(month, traced(trace, System.nanoTime(), departure, arrival, month,
+                    scheduleClient.getScheduleAsync(departure, arrival, month.getYear(), month.getMonthValue()))
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                        HttpStatus status = cause instanceof RestClientException
+                                ? ((RestClientException) cause).getHttpStatus() : null;
+                        log.warn("Error getting schedules, status code: {}. Message: {}", status, cause.getMessage());
+                        return Optional.empty();
+                    }));
+        }
+
+        return CompletableFuture.allOf(schedules.values().toArray(new CompletableFuture[0])).thenApply(done -> {
+            Map<YearMonth, MonthSchedule> schedulesByMonth = new LinkedHashMap<>();
+            schedules.forEach((month, schedule) -> schedule.join()
+                    .ifPresent(found -> schedulesByMonth.put(month, found)));
+            return schedulesByMonth;
+        });
+    }
+
+    /**
+     * Records the time the schedule of a month takes to be fetched, and its outcome, on the trace of the search. The
+     * start is taken before the call, as a blocking client is done by the time its future is returned.
+     */
+    private CompletableFuture<Optional<MonthSchedule>> traced(SearchTrace trace, long start, String departure,
+        String arrival, YearMonth month, CompletableFuture<Optional<MonthSchedule>> schedule) {
+
+        if (null == trace) {
+            return schedule;
+        }
+        return schedule.whenComplete((result, error) -> trace.call("schedule", departure, arrival, month,
+                null != error ? "error" : result.isPresent() ? "found" : "missing", start));
+    }
 
-        List<Integer> monthsRange = getRange(departureDate.getMonthValue(), arrivalDate.getMonthValue());
-
-        return threadPool.submit(() -> monthsRange.parallelStream().map(month -> {
-            Optional<Schedule> schedule = Optional.empty();
-            try {
-                schedule = scheduleClient.getSchedule(departure, arrival, departureDate.getYear(), month);
-                schedule.ifPresent(schedule1 -> schedule1.setYear(departureDate.getYear()));
-                return schedule;
-            } catch (RestClientException e) {
-                log.warn("Error getting schedules, status code: " + e.getHttpStatus() + ". Message: " + e.getMessage());
-                return schedule;
-            }
-        }).filter(Optional::isPresent).map(Optional::get).collect(Collectors.toList())).get();
+    /**
+     * Gets every month between two dates including edges.
+     * @param from expressed in LocalDateTime.
+     * @param to expressed in LocalDateTime.
+     * @return a List of YearMonth. For inverted dates returns an empty List.
+     */
+    List<YearMonth> getMonths(LocalDateTime from, LocalDateTime to) {
+        List<YearMonth> months = new ArrayList<>();
+        YearMonth last = YearMonth.from(to);
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(last); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        return months;
     }
 
     /**
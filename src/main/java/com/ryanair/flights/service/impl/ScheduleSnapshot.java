@@ -0,0 +1,198 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.model.MonthSchedule;
+import com.ryanair.flights.model.Route;
+import com.ryanair.flights.model.ScheduleKey;
+import lombok.Getter;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Routes and month schedules in a compact binary file. Airport codes of the schedules are written once in a table and
+ * referred to by index, and every schedule is written as its columns of ints, so reading it back is a bulk copy from
+ * the memory mapped file into the arrays of a MonthSchedule, with no parsing.
+ * <p>
+ * Layout, big endian: magic, version, savedAt millis, airport table, routes, and then every schedule as departure and
+ * arrival airport indexes, year, month, flight count (-1 when the schedule does not exist) and its departures,
+ * arrivals and numbers columns.
+ */
+@Getter
+class ScheduleSnapshot {
+
+    private static final int MAGIC = 0x464C534E;
+    private static final int VERSION = 1;
+    private static final int NO_SCHEDULE = -1;
+    private static final short NULL_STRING = -1;
+
+    private final long savedAt;
+    private final List<Route> routes;
+    /**
+     * Schedules by key, a null value standing for a schedule known not to exist.
+     */
+    private final Map<ScheduleKey, MonthSchedule> schedules;
+
+    ScheduleSnapshot(long savedAt, List<Route> routes, Map<ScheduleKey, MonthSchedule> schedules) {
+        this.savedAt = savedAt;
+        this.routes = routes;
+        this.schedules = schedules;
+    }
+
+    /**
+     * Writes the snapshot to a temporary file moved over the given one, so a crash never leaves a partial snapshot.
+     * @param path of the snapshot file.
+     * @throws IOException when writing fails.
+     */
+    void write(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(savedAt);
+
+            Map<String, Integer> airports = new LinkedHashMap<>();
+            schedules.keySet().forEach(key -> {
+                airports.putIfAbsent(key.getDeparture(), airports.size());
+                airports.putIfAbsent(key.getArrival(), airports.size());
+            });
+            out.writeInt(airports.size());
+            for (String airport : airports.keySet()) {
+                writeString(out, airport);
+            }
+
+            out.writeInt(routes.size());
+            for (Route route : routes) {
+                writeString(out, route.getAirportFrom());
+                writeString(out, route.getAirportTo());
+                writeString(out, route.getConnectingAirport());
+                writeBoolean(out, route.getNewRoute());
+                writeBoolean(out, route.getSeasonalRoute());
+                writeString(out, route.getOperator());
+                writeString(out, route.getGroup());
+            }
+
+            out.writeInt(schedules.size());
+            for (Map.Entry<ScheduleKey, MonthSchedule> entry : schedules.entrySet()) {
+                ScheduleKey key = entry.getKey();
+                MonthSchedule schedule = entry.getValue();
+                out.writeInt(airports.get(key.getDeparture()));
+                out.writeInt(airports.get(key.getArrival()));
+                out.writeInt(key.getYear());
+                out.writeInt(key.getMonth());
+                if (null == schedule) {
+                    out.writeInt(NO_SCHEDULE);
+                    continue;
+                }
+                out.writeInt(schedule.size());
+                for (int i = 0; i < schedule.size(); i++) {
+                    out.writeInt(schedule.getDeparture(i));
+                }
+                for (int i = 0; i < schedule.size(); i++) {
+                    out.writeInt(schedule.getArrival(i));
+                }
+                for (int i = 0; i < schedule.size(); i++) {
+                    out.writeInt(schedule.getNumber(i));
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot by memory mapping the given file.
+     * @param path of the snapshot file.
+     * @return the ScheduleSnapshot read.
+     * @throws IOException when the file can not be read or is not a valid snapshot.
+     */
+    static ScheduleSnapshot read(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (MAGIC != buffer.getInt() || VERSION != buffer.getInt()) {
+                throw new IOException(path + " is not a snapshot of version " + VERSION + ".");
+            }
+            long savedAt = buffer.getLong();
+
+            String[] airports = new String[buffer.getInt()];
+            for (int i = 0; i < airports.length; i++) {
+                airports[i] = readString(buffer);
+            }
+
+            int routeCount = buffer.getInt();
+            List<Route> routes = new ArrayList<>(routeCount);
+            for (int i = 0; i < routeCount; i++) {
+                routes.add(new Route(readString(buffer), readString(buffer), readString(buffer), readBoolean(buffer),
+                        readBoolean(buffer), readString(buffer), readString(buffer)));
+            }
+
+            int scheduleCount = buffer.getInt();
+            Map<ScheduleKey, MonthSchedule> schedules = new LinkedHashMap<>(scheduleCount * 2);
+            for (int i = 0; i < scheduleCount; i++) {
+                ScheduleKey key = new ScheduleKey(airports[buffer.getInt()], airports[buffer.getInt()],
+                        buffer.getInt(), buffer.getInt());
+                int size = buffer.getInt();
+                schedules.put(key, NO_SCHEDULE == size ? null : MonthSchedule.of(key.getYear(), key.getMonth(),
+                        readInts(buffer, size), readInts(buffer, size), readInts(buffer, size)));
+            }
+            return new ScheduleSnapshot(savedAt, routes, schedules);
+
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                | NegativeArraySizeException e) {
+            throw new IOException(path + " is not a valid snapshot: " + e, e);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int size) {
+        int[] values = new int[size];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + size * Integer.BYTES);
+        return values;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (null == value) {
+            out.writeShort(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (NULL_STRING == length) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBoolean(DataOutputStream out, Boolean value) throws IOException {
+        out.writeByte(null == value ? -1 : value ? 1 : 0);
+    }
+
+    private static Boolean readBoolean(ByteBuffer buffer) {
+        byte value = buffer.get();
+        return -1 == value ? null : 1 == value;
+    }
+}
@@ -0,0 +1,68 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.configuration.TraceProperties;
+import com.ryanair.flights.model.SearchTrace;
+import com.ryanair.flights.service.SearchTraceServiceI;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Keeps the most recent slow searches with their breakdown in a bounded ring buffer, the oldest being dropped once
+ * it is full.
+ */
+@Service
+@Slf4j
+public class SearchTraceService implements SearchTraceServiceI {
+
+    private final double slowThresholdMillis;
+    private final SearchTrace[] slowSearches;
+    private int next;
+    private int size;
+
+    @Autowired
+    public SearchTraceService(TraceProperties traceProperties) {
+        this.slowThresholdMillis = traceProperties.getSlowThreshold().toMillis();
+        this.slowSearches = new SearchTrace[Math.max(1, traceProperties.getCapacity())];
+    }
+
+    /**
+     * Keeps a finished SearchTrace when the search took at least the slow threshold.
+     * @param trace of the search.
+     * @return true if the trace was kept, else false.
+     */
+    @Override
+    public boolean record(SearchTrace trace) {
+        if (null == trace || trace.getDurationMillis() < slowThresholdMillis) {
+            return false;
+        }
+        log.warn("SearchTraceService.record: slow search {} took {} ms, stages: {}", trace.getQuery(),
+                trace.getDurationMillis(), trace.getStages());
+
+        synchronized (slowSearches) {
+            slowSearches[next] = trace;
+            next = (next + 1) % slowSearches.length;
+            size = Math.min(size + 1, slowSearches.length);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the slow searches kept.
+     * @return a List of SearchTrace, slowest first.
+     */
+    @Override
+    public List<SearchTrace> getSlowSearches() {
+        List<SearchTrace> traces;
+        synchronized (slowSearches) {
+            traces = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                traces.add(slowSearches[i]);
+            }
+        }
+        traces.sort(Comparator.comparingDouble(SearchTrace::getDurationMillis).reversed());
+        return traces;
+    }
+}
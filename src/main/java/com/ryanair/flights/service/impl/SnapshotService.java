@@ -0,0 +1,196 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.client.ScheduleClient;
+import com.ryanair.flights.configuration.SnapshotProperties;
+import com.ryanair.flights.exception.RestClientException;
+import com.ryanair.flights.model.MonthSchedule;
+import com.ryanair.flights.model.Route;
+import com.ryanair.flights.model.RouteGraph;
+import com.ryanair.flights.model.ScheduleKey;
+import com.ryanair.flights.service.RouteServiceI;
+import com.ryanair.flights.service.SnapshotServiceI;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the RouteGraph and the schedule cache in a ScheduleSnapshot file, so a new or restarted node serves from it
+ * right away instead of starting cold. The snapshot is written periodically and on shutdown, restored on startup, and
+ * every restored entry is then fetched again in the background one at a time, so upstream sees no burst.
+ */
+@Service
+@Slf4j
+public class SnapshotService implements SnapshotServiceI {
+
+    private final CacheManager cacheManager;
+    private final RouteServiceI routeService;
+    private final ScheduleClient upstreamScheduleClient;
+    private final SnapshotProperties properties;
+    private volatile boolean stopped;
+
+    @Autowired
+    public SnapshotService(CacheManager cacheManager, RouteServiceI routeService,
+                           @Qualifier("upstream") ScheduleClient upstreamScheduleClient,
+                           SnapshotProperties snapshotProperties) {
+        this.cacheManager = cacheManager;
+        this.routeService = routeService;
+        this.upstreamScheduleClient = upstreamScheduleClient;
+        this.properties = snapshotProperties;
+    }
+
+    /**
+     * Restores the snapshot before the application starts serving requests.
+     */
+    @PostConstruct
+    public void restoreOnStartup() {
+        if (isEnabled()) {
+            restore();
+        }
+    }
+
+    /**
+     * Restores the RouteGraph and the schedule cache from the snapshot file, when there is one. A RouteGraph already
+     * built is kept, and a missing, invalid or older than max-age file is skipped.
+     * @return the number of schedules restored.
+     */
+    @Override
+    public int restore() {
+        if (!isEnabled()) {
+            return 0;
+        }
+        Path path = Paths.get(properties.getPath());
+        String logHeader = "SnapshotService.restore. Path: " + path + ".";
+        if (!Files.exists(path)) {
+            log.info(logHeader + " No snapshot to restore.");
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        ScheduleSnapshot snapshot;
+        try {
+            snapshot = ScheduleSnapshot.read(path);
+        } catch (IOException e) {
+            log.warn(logHeader + " Starting cold, snapshot could not be read. " + e.getMessage(), e);
+            return 0;
+        }
+        Duration age = Duration.ofMillis(System.currentTimeMillis() - snapshot.getSavedAt());
+        if (age.compareTo(properties.getMaxAge()) > 0) {
+            log.warn(logHeader + " Starting cold, snapshot saved at " + Instant.ofEpochMilli(snapshot.getSavedAt())
+                    + " is older than " + properties.getMaxAge() + ".");
+            return 0;
+        }
+
+        if (!snapshot.getRoutes().isEmpty()) {
+            routeService.restoreRouteGraph(RouteGraph.of(snapshot.getRoutes()));
+        }
+        Cache cache = cacheManager.getCache("schedule");
+        snapshot.getSchedules().forEach(cache::put);
+
+        log.info(logHeader + " Restored " + snapshot.getRoutes().size() + " routes and "
+                + snapshot.getSchedules().size() + " schedules saved at " + Instant.ofEpochMilli(snapshot.getSavedAt())
+                + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+
+        if (properties.isRevalidate()) {
+            List<ScheduleKey> keys = new ArrayList<>(snapshot.getSchedules().keySet());
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("snapshot-");
+            threadFactory.setDaemon(true);
+            threadFactory.newThread(() -> revalidate(keys)).start();
+        }
+        return snapshot.getSchedules().size();
+    }
+
+    /**
+     * Stops revalidating and writes a last snapshot before the application shuts down.
+     */
+    @PreDestroy
+    public void saveOnShutdown() {
+        stopped = true;
+        save();
+    }
+
+    /**
+     * Writes the current RouteGraph and schedule cache to the snapshot file, periodically.
+     * @return true if the snapshot was written, else false.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${flight.snapshot.save-interval-ms:600000}",
+            initialDelayString = "${flight.snapshot.save-interval-ms:600000}")
+    public boolean save() {
+        Cache cache = cacheManager.getCache("schedule");
+        if (!isEnabled() || !(cache instanceof CaffeineCache)) {
+            return false;
+        }
+        Path path = Paths.get(properties.getPath());
+        String logHeader = "SnapshotService.save. Path: " + path + ".";
+
+        Map<ScheduleKey, MonthSchedule> schedules = new LinkedHashMap<>();
+        ((CaffeineCache) cache).getNativeCache().asMap().forEach((key, value) -> {
+            if (key instanceof ScheduleKey && (value instanceof MonthSchedule || value instanceof NullValue)) {
+                schedules.put((ScheduleKey) key, value instanceof MonthSchedule ? (MonthSchedule) value : null);
+            }
+        });
+        List<Route> routes = routeService.getCurrentRouteGraph().map(RouteGraph::getRoutes)
+                .orElse(Collections.emptyList());
+
+        try {
+            new ScheduleSnapshot(System.currentTimeMillis(), routes, schedules).write(path);
+            log.info(logHeader + " Saved " + routes.size() + " routes and " + schedules.size() + " schedules.");
+            return true;
+        } catch (IOException e) {
+            log.warn(logHeader + " Snapshot could not be written. " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Fetches again the RouteGraph and, one at a time, every given schedule still cached. A schedule that fails to be
+     * fetched keeps its restored value until it is refreshed.
+     * @param keys of the restored schedules.
+     * @return the number of schedules revalidated.
+     */
+    int revalidate(Collection<ScheduleKey> keys) {
+        routeService.refreshRouteGraph();
+
+        Cache cache = cacheManager.getCache("schedule");
+        int revalidated = 0;
+        for (ScheduleKey key : keys) {
+            if (stopped) {
+                break;
+            }
+            if (null == cache.get(key)) {
+                continue;
+            }
+            try {
+                cache.put(key, upstreamScheduleClient.getSchedule(key.getDeparture(), key.getArrival(), key.getYear(),
+                        key.getMonth()).orElse(null));
+                revalidated++;
+            } catch (RestClientException e) {
+                log.warn("SnapshotService.revalidate: keeping restored schedule for " + key + ". " + e.getMessage());
+            }
+        }
+        log.info("SnapshotService.revalidate: " + revalidated + " of " + keys.size() + " schedules revalidated.");
+        return revalidated;
+    }
+
+    private boolean isEnabled() {
+        return null != properties.getPath() && !properties.getPath().trim().isEmpty();
+    }
+}
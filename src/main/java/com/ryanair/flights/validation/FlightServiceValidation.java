@@ -1,13 +1,34 @@
 package com.ryanair.flights.validation;
 
+import com.ryanair.flights.configuration.SearchProperties;
 import com.ryanair.flights.exception.ValidationException;
+import com.ryanair.flights.model.SearchOptions;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 @Service
 public class FlightServiceValidation {
 
+    private final int maxStopsLimit;
+    private final int maxBatchSize;
+    private final int maxDestinationStopsLimit;
+    private final int maxDestinationPairs;
+    private final Duration defaultMinLayover;
+    private final Duration defaultMaxLayover;
+
+    @Autowired
+    public FlightServiceValidation(SearchProperties searchProperties) {
+        this.maxStopsLimit = searchProperties.getMaxStopsLimit();
+        this.maxBatchSize = searchProperties.getMaxBatchSize();
+        this.maxDestinationStopsLimit = searchProperties.getMaxDestinationStopsLimit();
+        this.maxDestinationPairs = searchProperties.getMaxDestinationPairs();
+        this.defaultMinLayover = searchProperties.getMinLayover();
+        this.defaultMaxLayover = searchProperties.getMaxLayover();
+    }
+
     /**
      * Validates that parameters needed for finding interconnections are correct.
      * @param departure airport expressed as a IATA code.
@@ -23,6 +44,89 @@ public class FlightServiceValidation {
         validateDateTimes(departureDateTime, arrivalDateTime);
     }
 
+    /**
+     * Validates that parameters needed for finding the destinations reachable from an airport are correct.
+     * @param departure airport expressed as a IATA code.
+     * @param departureDateTime as a LocalDateTime.
+     * @param arrivalDateTime as a LocalDateTime.
+     * @throws ValidationException in case validation fails.
+     */
+    public void validateDestinationsParameters(String departure, LocalDateTime departureDateTime,
+                                               LocalDateTime arrivalDateTime) throws ValidationException {
+        validateIataCode(departure);
+        validateDateTimes(departureDateTime, arrivalDateTime);
+    }
+
+    /**
+     * Validates that the paging options and connection limits of a search are correct. Layovers are checked once the
+     * configured defaults fill in the ones the options do not set, as the search uses them.
+     * @param options with the limit, offset and sort of the results, and the connection limits.
+     * @throws ValidationException in case validation fails.
+     */
+    public void validateSearchOptions(SearchOptions options) throws ValidationException {
+        Duration minLayover = null != options.getMinLayover() ? options.getMinLayover() : defaultMinLayover;
+        Duration maxLayover = null != options.getMaxLayover() ? options.getMaxLayover() : defaultMaxLayover;
+
+        if (null != options.getLimit() && options.getLimit() <= 0) {
+            throw new ValidationException("Limit: " + options.getLimit() + " must be greater than zero.");
+        } else if (options.getOffset() < 0) {
+            throw new ValidationException("Offset: " + options.getOffset() + " can not be negative.");
+        } else if (null != minLayover && minLayover.isNegative()) {
+            throw new ValidationException("Minimum layover: " + minLayover + " can not be negative.");
+        } else if (null != maxLayover && maxLayover.isNegative()) {
+            throw new ValidationException("Maximum layover: " + maxLayover + " can not be negative.");
+        } else if (null != maxLayover && null != minLayover && maxLayover.compareTo(minLayover) < 0) {
+            throw new ValidationException("Maximum layover: " + maxLayover
+                    + " can not be shorter than minimum layover: " + minLayover + ".");
+        } else if (null != options.getMaxTripDuration() && (options.getMaxTripDuration().isNegative()
+                || options.getMaxTripDuration().isZero())) {
+            throw new ValidationException("Maximum trip duration: " + options.getMaxTripDuration()
+                    + " must be greater than zero.");
+        } else if (null != options.getMaxStops() && (options.getMaxStops() < 0
+                || options.getMaxStops() > maxStopsLimit)) {
+            throw new ValidationException("Maximum stops: " + options.getMaxStops() + " must be between 0 and "
+                    + maxStopsLimit + ".");
+        }
+    }
+
+    /**
+     * Validates that a batch holds at least one query and no more than the configured maximum.
+     * @param size number of queries of the batch.
+     * @throws ValidationException in case validation fails.
+     */
+    public void validateBatchSize(int size) throws ValidationException {
+        if (size <= 0) {
+            throw new ValidationException("Batch must hold at least one query.");
+        } else if (size > maxBatchSize) {
+            throw new ValidationException("Batch of " + size + " queries is larger than the maximum: " + maxBatchSize
+                    + ".");
+        }
+    }
+
+    /**
+     * Validates that a destinations search asks for no more stops than the configured maximum for destinations.
+     * @param maxStops of the search, the default one when the request does not set it.
+     * @throws ValidationException in case validation fails.
+     */
+    public void validateDestinationStops(int maxStops) throws ValidationException {
+        if (maxStops > maxDestinationStopsLimit) {
+            throw new ValidationException("Maximum stops: " + maxStops + " must be between 0 and "
+                    + maxDestinationStopsLimit + " when searching destinations.");
+        }
+    }
+
+    /**
+     * Validates that a destinations search fetches no more airport pairs than the configured maximum.
+     * @param pairs number of airport pairs reachable within the stops of the search.
+     * @throws ValidationException in case validation fails.
+     */
+    public void validateDestinationPairs(int pairs) throws ValidationException {
+        if (pairs > maxDestinationPairs) {
+            throw new ValidationException("Destinations search reaching " + pairs
+                    + " airport pairs is larger than the maximum: " + maxDestinationPairs + ".");
+        }
+    }
+
     // TODO: Add more validations considering possible business requirements not defined yet.
     private void validateIataCode(String code) throws ValidationException {
         if (null == code) {
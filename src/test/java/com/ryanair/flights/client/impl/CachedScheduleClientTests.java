@@ -0,0 +1,183 @@
+package com.ryanair.flights.client.impl;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ryanair.flights.client.ScheduleClient;
+import com.ryanair.flights.exception.RestClientException;
+import com.ryanair.flights.model.MonthSchedule;
+import com.ryanair.flights.model.ScheduleKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+@RunWith(SpringRunner.class)
+public class CachedScheduleClientTests {
+
+    @Mock
+    ScheduleClient scheduleClient;
+
+    private CachedScheduleClient cachedScheduleClient;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    MonthSchedule schedule = MonthSchedule.empty(2019, 1);
+
+    @Before
+    public void beforeEachTest() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCacheNames(Collections.singletonList("schedule"));
+        meterRegistry = new SimpleMeterRegistry();
+        cachedScheduleClient = new CachedScheduleClient(scheduleClient, cacheManager, meterRegistry);
+    }
+
+    /**
+     * Should fetch a schedule only once and then serve it from the cache.
+     */
+    @Test
+    public void getScheduleCachesSchedule() throws Exception {
+        given(scheduleClient.getScheduleAsync("EZE", "MDQ", 2019, 1))
+                .willReturn(CompletableFuture.completedFuture(Optional.of(schedule)));
+
+        Assert.assertTrue(cachedScheduleClient.getSchedule("EZE", "MDQ", 2019, 1).get() == schedule);
+        Assert.assertTrue(cachedScheduleClient.getSchedule("EZE", "MDQ", 2019, 1).get() == schedule);
+        then(scheduleClient).should(times(1)).getScheduleAsync("EZE", "MDQ", 2019, 1);
+    }
+
+    /**
+     * Should look schedules up without loading them, so a cache with a loader counts a miss as a miss and not as a
+     * failed load.
+     */
+    @Test
+    public void getScheduleDoesNotLoadOnLookup() throws Exception {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder().recordStats());
+        cacheManager.setCacheLoader(new ScheduleCacheLoader(scheduleClient));
+        cacheManager.setCacheNames(Collections.singletonList("schedule"));
+        cachedScheduleClient = new CachedScheduleClient(scheduleClient, cacheManager, meterRegistry);
+        given(scheduleClient.getScheduleAsync("EZE", "MDQ", 2019, 1))
+                .willReturn(CompletableFuture.completedFuture(Optional.of(schedule)));
+
+        cachedScheduleClient.getSchedule("EZE", "MDQ", 2019, 1);
+        cachedScheduleClient.getSchedule("EZE", "MDQ", 2019, 1);
+
+        CacheStats stats = ((com.github.benmanes.caffeine.cache.Cache<?, ?>) cacheManager.getCache("schedule")
+                .getNativeCache()).stats();
+        Assert.assertTrue(stats.hitCount() == 1);
+        Assert.assertTrue(stats.missCount() == 1);
+        Assert.assertTrue(stats.loadFailureCount() == 0);
+        then(scheduleClient).should(never()).getSchedule("EZE", "MDQ", 2019, 1);
+    }
+
+    /**
+     * Should not call upstream when another call cached the schedule between the lookup and the call in flight.
+     */
+    @Test
+    public void getScheduleChecksCacheBeforeCallingUpstream() throws Exception {
+        Cache cache = mock(Cache.class);
+        CacheManager cacheManager = mock(CacheManager.class);
+        given(cacheManager.getCache("schedule")).willReturn(cache);
+        given(cache.get(new ScheduleKey("EZE", "MDQ", 2019, 1))).willReturn(null, new SimpleValueWrapper(schedule));
+        cachedScheduleClient = new CachedScheduleClient(scheduleClient, cacheManager, meterRegistry);
+
+        Assert.assertTrue(cachedScheduleClient.getSchedule("EZE", "MDQ", 2019, 1).get() == schedule);
+        then(scheduleClient).should(never()).getScheduleAsync("EZE", "MDQ", 2019, 1);
+    }
+
+    /**
+     * Should cache schedules that do not exist as well.
+     */
+    @Test
+    public void getScheduleCachesMissingSchedule() throws Exception {
+        given(scheduleClient.getScheduleAsync("EZE", "MDQ", 2019, 1))
+                .willReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        Assert.assertFalse(cachedScheduleClient.getSchedule("EZE", "MDQ", 2019, 1).isPresent());
+        Assert.assertFalse(cachedScheduleClient.getSchedule("EZE", "MDQ", 2019, 1).isPresent());
+        then(scheduleClient).should(times(1)).getScheduleAsync("EZE", "MDQ", 2019, 1);
+    }
+
+    /**
+     * Should not cache failures.
+     */
+    @Test(expected = RestClientException.class)
+    public void getScheduleDoesNotCacheFailures() throws Exception {
+        CompletableFuture<Optional<MonthSchedule>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RestClientException("", null, HttpStatus.INTERNAL_SERVER_ERROR));
+        given(scheduleClient.getScheduleAsync("EZE", "MDQ", 2019, 1)).willReturn(failed);
+
+        try {
+            cachedScheduleClient.getSchedule("EZE", "MDQ", 2019, 1);
+        } catch (RestClientException e) {
+            cachedScheduleClient.getSchedule("EZE", "MDQ", 2019, 1);
+        }
+    }
+
+    /**
+     * Should share a single call between concurrent callers of the same schedule.
+     */
+    @Test
+    public void getScheduleCoalescesConcurrentCalls() throws Exception {
+        CompletableFuture<Optional<MonthSchedule>> inFlight = new CompletableFuture<>();
+        given(scheduleClient.getScheduleAsync("EZE", "MDQ", 2019, 1)).willReturn(inFlight);
+
+        CompletableFuture<Optional<MonthSchedule>> first = cachedScheduleClient.getScheduleAsync("EZE", "MDQ", 2019, 1);
+        CompletableFuture<Optional<MonthSchedule>> second = cachedScheduleClient.getScheduleAsync("EZE", "MDQ", 2019, 1);
+        Assert.assertFalse(first.isDone());
+        Assert.assertFalse(second.isDone());
+
+        inFlight.complete(Optional.of(schedule));
+
+        Assert.assertTrue(first.get().get() == schedule);
+        Assert.assertTrue(second.get().get() == schedule);
+        Assert.assertTrue(cachedScheduleClient.getSchedule("EZE", "MDQ", 2019, 1).get() == schedule);
+        then(scheduleClient).should(times(1)).getScheduleAsync("EZE", "MDQ", 2019, 1);
+    }
+
+    /**
+     * Should time every fetch by its outcome: a miss, then a hit, a 4xx for a missing schedule and a 5xx for a failure.
+     */
+    @Test
+    public void getScheduleTimesFetchesByOutcome() throws Exception {
+        CompletableFuture<Optional<MonthSchedule>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RestClientException("", null, HttpStatus.BAD_GATEWAY));
+        given(scheduleClient.getScheduleAsync("EZE", "MDQ", 2019, 1))
+                .willReturn(CompletableFuture.completedFuture(Optional.of(schedule)));
+        given(scheduleClient.getScheduleAsync("EZE", "MDQ", 2019, 2))
+                .willReturn(CompletableFuture.completedFuture(Optional.empty()));
+        given(scheduleClient.getScheduleAsync("EZE", "MDQ", 2019, 3)).willReturn(failed);
+
+        cachedScheduleClient.getSchedule("EZE", "MDQ", 2019, 1);
+        cachedScheduleClient.getSchedule("EZE", "MDQ", 2019, 1);
+        cachedScheduleClient.getSchedule("EZE", "MDQ", 2019, 2);
+        cachedScheduleClient.getScheduleAsync("EZE", "MDQ", 2019, 3);
+
+        Assert.assertTrue(fetchCount("miss") == 1);
+        Assert.assertTrue(fetchCount("hit") == 1);
+        Assert.assertTrue(fetchCount("4xx") == 1);
+        Assert.assertTrue(fetchCount("5xx") == 1);
+        Assert.assertTrue(fetchCount("error") == 0);
+    }
+
+    private long fetchCount(String outcome) {
+        return meterRegistry.get("flight.schedule.fetch").tag("outcome", outcome).timer().count();
+    }
+}
@@ -0,0 +1,63 @@
+package com.ryanair.flights.client.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class MeteredConnectionManagerTests {
+
+    MeterRegistry registry = new SimpleMeterRegistry();
+    MeteredConnectionManager connectionManager = new MeteredConnectionManager(2000);
+    HttpRoute route = new HttpRoute(new HttpHost("localhost", 8080));
+
+    @Before
+    public void setUp() {
+        connectionManager.setMaxTotal(10);
+        connectionManager.setDefaultMaxPerRoute(5);
+        connectionManager.bindTo(registry);
+    }
+
+    @After
+    public void tearDown() {
+        connectionManager.shutdown();
+    }
+
+    /**
+     * Should publish the limits and the number of leased and available connections of the pool.
+     */
+    @Test
+    public void bindToPublishesPoolState() throws Exception {
+        Assert.assertTrue(registry.get("http.client.pool.max").gauge().value() == 10);
+        Assert.assertTrue(registry.get("http.client.pool.leased").gauge().value() == 0);
+
+        HttpClientConnection connection = connectionManager.requestConnection(route, null)
+                .get(1, TimeUnit.SECONDS);
+
+        Assert.assertTrue(registry.get("http.client.pool.leased").gauge().value() == 1);
+        Assert.assertTrue(registry.get("http.client.pool.pending").gauge().value() == 0);
+
+        connectionManager.releaseConnection(connection, null, 1, TimeUnit.MINUTES);
+
+        Assert.assertTrue(registry.get("http.client.pool.leased").gauge().value() == 0);
+    }
+
+    /**
+     * Should time every connection lease.
+     */
+    @Test
+    public void requestConnectionRecordsAcquireTime() throws Exception {
+        HttpClientConnection connection = connectionManager.requestConnection(route, null)
+                .get(1, TimeUnit.SECONDS);
+        connectionManager.releaseConnection(connection, null, 1, TimeUnit.MINUTES);
+
+        Assert.assertTrue(registry.get("http.client.pool.acquire").timer().count() == 1);
+    }
+}
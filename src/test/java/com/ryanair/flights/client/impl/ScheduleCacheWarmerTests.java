@@ -0,0 +1,144 @@
+package com.ryanair.flights.client.impl;
+
+import com.ryanair.flights.client.ScheduleClient;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.ryanair.flights.configuration.ScheduleCacheProperties;
+import com.ryanair.flights.model.MonthSchedule;
+import com.ryanair.flights.model.ScheduleKey;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@RunWith(SpringRunner.class)
+public class ScheduleCacheWarmerTests {
+
+    @Mock
+    ScheduleClient scheduleClient;
+
+    private AtomicLong nanos = new AtomicLong();
+    private CaffeineCacheManager cacheManager;
+    private Cache cache;
+    private ScheduleCacheWarmer scheduleCacheWarmer;
+
+    ScheduleKey key = new ScheduleKey("EZE", "MDQ", 2019, 1);
+    MonthSchedule cached = MonthSchedule.empty(2019, 1);
+    MonthSchedule fresh = MonthSchedule.empty(2019, 1);
+
+    @Before
+    public void beforeEachTest() {
+        Ticker ticker = nanos::get;
+        cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(100).expireAfterWrite(30, TimeUnit.MINUTES)
+                .ticker(ticker));
+        cacheManager.setCacheNames(Collections.singletonList("schedule"));
+        cache = cacheManager.getCache("schedule");
+
+        ScheduleCacheProperties properties = new ScheduleCacheProperties();
+        properties.getWarmer().setLead(Duration.ofMinutes(5));
+        scheduleCacheWarmer = new ScheduleCacheWarmer(cacheManager, scheduleClient, Runnable::run, properties);
+
+        cache.put(key, cached);
+    }
+
+    /**
+     * Should replace a hot schedule that is about to expire.
+     */
+    @Test
+    public void warmHottestSchedulesAboutToExpire() throws Exception {
+        given(scheduleClient.getSchedule("EZE", "MDQ", 2019, 1)).willReturn(Optional.of(fresh));
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(26));
+
+        Assert.assertTrue(scheduleCacheWarmer.warmHottestSchedules() == 1);
+        Assert.assertTrue(cache.get(key).get() == fresh);
+    }
+
+    /**
+     * Should leave the schedules already due for refresh to the cache, which reloads them on their next read.
+     */
+    @Test
+    public void warmHottestSchedulesDueForRefresh() throws Exception {
+        Ticker ticker = nanos::get;
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(100).expireAfterWrite(30, TimeUnit.MINUTES)
+                .refreshAfterWrite(20, TimeUnit.MINUTES).ticker(ticker));
+        cacheManager.setCacheLoader(new ScheduleCacheLoader(scheduleClient));
+        cacheManager.setCacheNames(Collections.singletonList("schedule"));
+        cacheManager.getCache("schedule").put(key, cached);
+        ScheduleCacheProperties properties = new ScheduleCacheProperties();
+        properties.getWarmer().setLead(Duration.ofMinutes(5));
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(26));
+
+        Assert.assertTrue(new ScheduleCacheWarmer(cacheManager, scheduleClient, Runnable::run, properties)
+                .warmHottestSchedules() == 0);
+        then(scheduleClient).should(never()).getSchedule("EZE", "MDQ", 2019, 1);
+    }
+
+    /**
+     * Should warm a hot schedule ahead of the refreshAfterWrite of the shipped spec, which comes before its expiry.
+     */
+    @Test
+    public void warmHottestSchedulesWithDefaultSpec() throws Exception {
+        Ticker ticker = nanos::get;
+        ScheduleCacheProperties properties = new ScheduleCacheProperties();
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.from(properties.getSpec()).ticker(ticker));
+        cacheManager.setCacheLoader(new ScheduleCacheLoader(scheduleClient));
+        cacheManager.setCacheNames(Collections.singletonList("schedule"));
+        Cache defaultCache = cacheManager.getCache("schedule");
+        defaultCache.put(key, cached);
+        given(scheduleClient.getSchedule("EZE", "MDQ", 2019, 1)).willReturn(Optional.of(fresh));
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(16));
+
+        Assert.assertTrue(new ScheduleCacheWarmer(cacheManager, scheduleClient, Runnable::run, properties)
+                .warmHottestSchedules() == 1);
+        Assert.assertTrue(defaultCache.get(key).get() == fresh);
+    }
+
+    /**
+     * Should skip a round while the schedules of the previous one are still being fetched.
+     */
+    @Test
+    public void warmHottestSchedulesPreviousRoundInFlight() throws Exception {
+        List<Runnable> pending = new ArrayList<>();
+        ScheduleCacheProperties properties = new ScheduleCacheProperties();
+        properties.getWarmer().setLead(Duration.ofMinutes(5));
+        ScheduleCacheWarmer warmer = new ScheduleCacheWarmer(cacheManager, scheduleClient, pending::add, properties);
+        given(scheduleClient.getSchedule("EZE", "MDQ", 2019, 1)).willReturn(Optional.of(fresh));
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(26));
+
+        Assert.assertTrue(warmer.warmHottestSchedules() == 1);
+        Assert.assertTrue(warmer.warmHottestSchedules() == 0);
+        pending.forEach(Runnable::run);
+        Assert.assertTrue(cache.get(key).get() == fresh);
+    }
+
+    /**
+     * Should not fetch schedules that are far from expiring.
+     */
+    @Test
+    public void warmHottestSchedulesNotAboutToExpire() throws Exception {
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(10));
+
+        Assert.assertTrue(scheduleCacheWarmer.warmHottestSchedules() == 0);
+        Assert.assertTrue(cache.get(key).get() == cached);
+        then(scheduleClient).should(never()).getSchedule("EZE", "MDQ", 2019, 1);
+    }
+}
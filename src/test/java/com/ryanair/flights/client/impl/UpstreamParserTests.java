@@ -0,0 +1,72 @@
+package com.ryanair.flights.client.impl;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.ryanair.flights.model.MonthSchedule;
+import com.ryanair.flights.model.Route;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class UpstreamParserTests {
+
+    private InputStream json(String json) {
+        return new ByteArrayInputStream(json.replace('\'', '"').getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Should keep only the routes without connecting airport and with RYANAIR as operator.
+     */
+    @Test
+    public void parseRoutesFiltersWhileParsing() throws Exception {
+        List<Route> routes = UpstreamParser.parseRoutes(json("["
+                + "{'airportFrom':'EZE','airportTo':'MDQ','connectingAirport':null,'newRoute':false,"
+                + "'seasonalRoute':true,'operator':'RYANAIR','group':'GENERIC','similarArrivalAirportCodes':['X']},"
+                + "{'airportFrom':'EZE','airportTo':'RIO','connectingAirport':'MDQ','operator':'RYANAIR'},"
+                + "{'airportFrom':'EZE','airportTo':'JFK','connectingAirport':null,'operator':'OTHER'}]"));
+
+        Assert.assertTrue(routes.size() == 1);
+        Assert.assertTrue(routes.get(0).equals(new Route("EZE", "MDQ", null, false, true, "RYANAIR", "GENERIC")));
+    }
+
+    /**
+     * Should return an empty List for an empty body.
+     */
+    @Test
+    public void parseRoutesEmptyBody() throws Exception {
+        Assert.assertTrue(UpstreamParser.parseRoutes(json("")).isEmpty());
+    }
+
+    /**
+     * Should build the MonthSchedule sorted by departure, whatever the order of the fields and of the days.
+     */
+    @Test
+    public void parseScheduleHappyPath() throws Exception {
+        MonthSchedule schedule = UpstreamParser.parseSchedule(json("{'month':1,'days':["
+                + "{'flights':[{'carrierCode':'FR','number':'1926','departureTime':'17:50','arrivalTime':'21:25'}],"
+                + "'day':20},"
+                + "{'day':2,'flights':[{'number':1925,'departureTime':'06:15','arrivalTime':'09:50'},"
+                + "{'departureTime':'07:30','arrivalTime':'11:05','number':'FR1'}]}]}"), 2019, 1);
+
+        Assert.assertTrue(schedule.size() == 3);
+        Assert.assertTrue(schedule.getDepartureDateTime(0).equals(LocalDateTime.of(2019, 1, 2, 6, 15)));
+        Assert.assertTrue(schedule.getArrivalDateTime(0).equals(LocalDateTime.of(2019, 1, 2, 9, 50)));
+        Assert.assertTrue(schedule.getNumber(0) == 1925);
+        Assert.assertTrue(schedule.getNumber(1) == 0);
+        Assert.assertTrue(schedule.getDepartureDateTime(2).equals(LocalDateTime.of(2019, 1, 20, 17, 50)));
+        Assert.assertTrue(schedule.getNumber(2) == 1926);
+    }
+
+    /**
+     * Should fail for a time not in HH:mm format.
+     */
+    @Test(expected = JsonParseException.class)
+    public void parseScheduleNonValidTime() throws Exception {
+        UpstreamParser.parseSchedule(json("{'days':[{'day':2,'flights':[{'departureTime':'6:15',"
+                + "'arrivalTime':'09:50'}]}]}"), 2019, 1);
+    }
+}
@@ -0,0 +1,39 @@
+package com.ryanair.flights.configuration;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+public class SearchPropertiesTests {
+
+    private ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ValidationAutoConfiguration.class))
+            .withUserConfiguration(SearchPropertiesConfiguration.class);
+
+    /**
+     * Should bind the shipped defaults.
+     */
+    @Test
+    public void bindDefaults() {
+        contextRunner.run(context -> Assert.assertTrue(
+                context.getBean(SearchProperties.class).getMaxDestinationOptions() == 10));
+    }
+
+    /**
+     * Should fail at startup when destinations searches would keep no flight per destination.
+     */
+    @Test
+    public void bindNoDestinationOptions() {
+        contextRunner.withPropertyValues("flight.search.max-destination-options=0")
+                .run(context -> Assert.assertTrue(null != context.getStartupFailure()));
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(SearchProperties.class)
+    static class SearchPropertiesConfiguration {
+    }
+}
@@ -1,26 +1,49 @@
 package com.ryanair.flights.controller;
 
+import com.ryanair.flights.configuration.TraceProperties;
+import com.ryanair.flights.model.DestinationResponse;
 import com.ryanair.flights.model.FlightResponse;
+import com.ryanair.flights.model.InterconnectionResult;
+import com.ryanair.flights.model.SearchOptions;
 import com.ryanair.flights.exception.RestClientException;
 import com.ryanair.flights.exception.ValidationException;
+import com.ryanair.flights.model.SearchTrace;
 import com.ryanair.flights.service.FlightServiceI;
+import com.ryanair.flights.service.SearchTraceServiceI;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -36,8 +59,27 @@ public class FlightControllerTests {
     @MockBean
     private CacheManager cacheManager;
 
+    @MockBean
+    private SearchTraceServiceI searchTraceService;
+
+    @TestConfiguration
+    static class ControllerConfiguration {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        TraceProperties traceProperties() {
+            return new TraceProperties();
+        }
+    }
+
     private String validUrl = ("/v1/flight/interconnections?departure=STN&arrival=MAD&" +
             "depDate=2019-12-01T21:00:00.000-05:00&arrDate=2020-01-04T21:00:00.000-05:00");
+    private String destinationsUrl = ("/v1/flight/destinations?departure=STN&maxStops=1&" +
+            "depDate=2019-12-01T21:00:00.000-05:00&arrDate=2019-12-03T21:00:00.000-05:00");
     /**
      * Tests the case when flightService.findInterconnections returns a successful response. OK status should be
      * returned.
@@ -45,18 +87,44 @@ public class FlightControllerTests {
     @Test
     public void interconnectionsHappyPath() throws Exception {
         List<FlightResponse> response = new ArrayList<>();
-        given(flightService.findInterconnections(any(), any(), any(), any())).willReturn(response);
+        given(flightService.findInterconnections(any(), any(), any(), any(), any(SearchOptions.class))).willReturn(response);
 
         this.mockMvc.perform(get(validUrl)).andExpect(status().isOk());
     }
 
+    /**
+     * Tests the case when flightService.findDestinations returns a successful response. OK status should be returned
+     * with every destination.
+     */
+    @Test
+    public void destinationsHappyPath() throws Exception {
+        List<DestinationResponse> response = new ArrayList<>();
+        response.add(new DestinationResponse("MAD", LocalDateTime.of(2019, 12, 2, 9, 0), new ArrayList<>()));
+        given(flightService.findDestinations(eq("STN"), any(), any(), any(SearchOptions.class))).willReturn(response);
+
+        this.mockMvc.perform(get(destinationsUrl)).andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"arrivalAirport\":\"MAD\"")));
+    }
+
+    /**
+     * Tests the case when flightService.findDestinations throws a ValidationException. BAD_REQUEST status should be
+     * returned.
+     */
+    @Test
+    public void destinationsValidationExceptionThrown() throws Exception {
+        given(flightService.findDestinations(any(), any(), any(), any(SearchOptions.class)))
+                .willThrow(new ValidationException(""));
+
+        this.mockMvc.perform(get(destinationsUrl)).andExpect(status().isBadRequest());
+    }
+
     /**
      * Tests the case when flightService.findInterconnections throws a ValidationException. BAD_REQUEST status should be
      * returned.
      */
     @Test
     public void interconnectionsValidationExceptionThrown() throws Exception {
-        given(flightService.findInterconnections(any(), any(), any(), any())).willThrow(new ValidationException(""));
+        given(flightService.findInterconnections(any(), any(), any(), any(), any(SearchOptions.class))).willThrow(new ValidationException(""));
 
         this.mockMvc.perform(get(validUrl)).andExpect(status().isBadRequest());
     }
@@ -67,7 +135,7 @@ public class FlightControllerTests {
      */
     @Test
     public void interconnectionsRestClientExceptionThrown() throws Exception {
-        given(flightService.findInterconnections(any(), any(), any(), any()))
+        given(flightService.findInterconnections(any(), any(), any(), any(), any(SearchOptions.class)))
                 .willThrow(new RestClientException(
                         "", new HttpClientErrorException(HttpStatus.FORBIDDEN), HttpStatus.FORBIDDEN));
 
@@ -80,9 +148,128 @@ public class FlightControllerTests {
      */
     @Test
     public void interconnectionsExceptionThrown() throws Exception {
-        given(flightService.findInterconnections(any(), any(), any(), any()))
+        given(flightService.findInterconnections(any(), any(), any(), any(), any(SearchOptions.class)))
                 .willThrow(new ArithmeticException(""));
 
         this.mockMvc.perform(get(validUrl)).andExpect(status().isInternalServerError());
     }
+
+    /**
+     * Tests the case when streaming is requested with the Accept header. Every FlightResponse should be written as a
+     * line of NDJSON.
+     */
+    @Test
+    public void interconnectionsStreamHappyPath() throws Exception {
+        willAnswer(invocation -> {
+            Consumer<FlightResponse> sink = invocation.getArgument(5);
+            sink.accept(new FlightResponse(0, new ArrayList<>()));
+            sink.accept(new FlightResponse(1, new ArrayList<>()));
+            return null;
+        }).given(flightService).findInterconnections(any(), any(), any(), any(), any(), any());
+
+        this.mockMvc.perform(get(validUrl).header(HttpHeaders.ACCEPT, FlightController.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(FlightController.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"stops\":0,\"legs\":[]}\n{\"stops\":1,\"legs\":[]}\n"));
+    }
+
+    /**
+     * Tests the case when streaming is requested with the stream parameter and a ValidationException is thrown before
+     * anything is written. BAD_REQUEST status should be returned.
+     */
+    @Test
+    public void interconnectionsStreamValidationExceptionThrown() throws Exception {
+        willThrow(new ValidationException("")).given(flightService)
+                .findInterconnections(any(), any(), any(), any(), any(), any());
+
+        this.mockMvc.perform(get(validUrl + "&stream=true")).andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests the case when paging parameters are given. They should reach flightService.findInterconnections as
+     * SearchOptions.
+     */
+    @Test
+    public void interconnectionsPaged() throws Exception {
+        SearchOptions options = new SearchOptions(20, 40, SearchOptions.Sort.DURATION);
+        given(flightService.findInterconnections(any(), any(), any(), any(), eq(options))).willReturn(new ArrayList<>());
+
+        this.mockMvc.perform(get(validUrl + "&limit=20&offset=40&sort=DURATION")).andExpect(status().isOk());
+        then(flightService).should().findInterconnections(any(), any(), any(), any(), eq(options));
+    }
+
+    /**
+     * Tests the case when an unknown sort is given. BAD_REQUEST status should be returned.
+     */
+    @Test
+    public void interconnectionsUnknownSort() throws Exception {
+        this.mockMvc.perform(get(validUrl + "&sort=PRICE")).andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests the case when a trace is requested. A Server-Timing header with the serialization and the total should be
+     * returned, and the search handed to the SearchTraceService.
+     */
+    @Test
+    public void interconnectionsTraced() throws Exception {
+        given(flightService.findInterconnections(any(), any(), any(), any(), any(SearchOptions.class)))
+                .willReturn(new ArrayList<>());
+
+        this.mockMvc.perform(get(validUrl + "&trace=true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(FlightController.SERVER_TIMING,
+                        allOf(containsString("serialization;dur="),
+                                containsString("total;dur="))));
+        then(searchTraceService).should().record(any(SearchTrace.class));
+    }
+
+    /**
+     * Tests the case when no trace is requested. No Server-Timing header should be returned.
+     */
+    @Test
+    public void interconnectionsNotTraced() throws Exception {
+        given(flightService.findInterconnections(any(), any(), any(), any(), any(SearchOptions.class)))
+                .willReturn(new ArrayList<>());
+
+        this.mockMvc.perform(get(validUrl))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(FlightController.SERVER_TIMING));
+    }
+
+    /**
+     * Tests the case when a batch is searched. The result of every query should be written as a line of NDJSON.
+     */
+    @Test
+    public void batchInterconnectionsHappyPath() throws Exception {
+        willAnswer(invocation -> {
+            Consumer<InterconnectionResult> sink = invocation.getArgument(1);
+            sink.accept(new InterconnectionResult(0, "STN", "MAD", new ArrayList<>(), null));
+            sink.accept(new InterconnectionResult(1, "STN", "DUB", null, "No routes."));
+            return null;
+        }).given(flightService).findInterconnections(any(List.class), any());
+
+        this.mockMvc.perform(post("/v1/flight/interconnections/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"departure\":\"STN\",\"arrival\":\"MAD\",\"depDate\":\"2019-12-01T21:00\","
+                        + "\"arrDate\":\"2020-01-04T21:00\"},{\"departure\":\"STN\",\"arrival\":\"DUB\","
+                        + "\"depDate\":\"2019-12-01T21:00\",\"arrDate\":\"2020-01-04T21:00\",\"maxStops\":2}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(FlightController.APPLICATION_NDJSON))
+                .andExpect(content().string(allOf(containsString("\"query\":0"),
+                        containsString("\"error\":\"No routes.\""))));
+    }
+
+    /**
+     * Tests the case when a batch is rejected. BAD_REQUEST status should be returned.
+     */
+    @Test
+    public void batchInterconnectionsValidationExceptionThrown() throws Exception {
+        willThrow(new ValidationException("Batch must hold at least one query."))
+                .given(flightService).findInterconnections(any(List.class), any());
+
+        this.mockMvc.perform(post("/v1/flight/interconnections/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
 }
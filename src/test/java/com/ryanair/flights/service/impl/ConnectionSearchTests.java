@@ -0,0 +1,90 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.model.AirportIds;
+import com.ryanair.flights.model.FlightResponse;
+import com.ryanair.flights.model.Leg;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ConnectionSearchTests {
+
+    LocalDateTime morning = LocalDateTime.of(2019, 1, 15, 6, 0);
+
+    Leg ezeRio = new Leg("EZE", "RIO", morning, morning.plusHours(2));
+    Leg rioSao = new Leg("RIO", "SAO", morning.plusHours(5), morning.plusHours(6));
+    Leg saoMdq = new Leg("SAO", "MDQ", morning.plusHours(9), morning.plusHours(11));
+    Leg rioMdq = new Leg("RIO", "MDQ", morning.plusHours(5), morning.plusHours(7));
+    Leg saoEze = new Leg("SAO", "EZE", morning.plusHours(9), morning.plusHours(10));
+    Leg earlySaoMdq = new Leg("SAO", "MDQ", morning.plusHours(6), morning.plusHours(7));
+    List<Leg> legs = Stream.of(ezeRio, rioSao, saoMdq, rioMdq, saoEze, earlySaoMdq).collect(Collectors.toList());
+
+    private List<FlightResponse> search(ConnectionRules rules) {
+        List<FlightResponse> result = new ArrayList<>();
+        new ConnectionSearch("EZE", "MDQ", rules, TestLegs.index(legs)).search(result::add);
+        return result;
+    }
+
+    /**
+     * Should find the one stop and the two stops trips, with their number of stops.
+     */
+    @Test
+    public void searchTwoStops() {
+        List<FlightResponse> result = search(new ConnectionRules(2, Duration.ofHours(2), null, null));
+
+        Assert.assertTrue(result.size() == 2);
+        Assert.assertTrue(result.stream().anyMatch(r -> r.getStops() == 1 && r.getLegs().get(1).equals(rioMdq)));
+        Assert.assertTrue(result.stream().anyMatch(r -> r.getStops() == 2 && r.getLegs().get(2).equals(saoMdq)));
+    }
+
+    /**
+     * Should not go beyond maxStops.
+     */
+    @Test
+    public void searchOneStop() {
+        List<FlightResponse> result = search(new ConnectionRules(1, Duration.ofHours(2), null, null));
+
+        Assert.assertTrue(result.size() == 1);
+        Assert.assertTrue(result.get(0).getLegs().get(1).equals(rioMdq));
+    }
+
+    /**
+     * Should honour the layover and trip duration limits on every connection.
+     */
+    @Test
+    public void searchWithinLimits() {
+        Assert.assertTrue(search(new ConnectionRules(2, Duration.ofHours(2), Duration.ofHours(2), null)).isEmpty());
+        Assert.assertTrue(search(new ConnectionRules(2, Duration.ofHours(2), null, Duration.ofHours(10))).size() == 1);
+    }
+
+    /**
+     * Should return nothing when the arrival airport can not be reached in time.
+     */
+    @Test
+    public void searchUnreachable() {
+        List<FlightResponse> result = new ArrayList<>();
+        new ConnectionSearch("EZE", "JFK", new ConnectionRules(3, Duration.ofHours(2), null, null),
+                TestLegs.index(legs)).search(result::add);
+
+        Assert.assertTrue(result.isEmpty());
+    }
+
+    /**
+     * Should find nothing for an airport never seen, without giving it an id.
+     */
+    @Test
+    public void searchUnknownAirport() {
+        List<FlightResponse> result = new ArrayList<>();
+        new ConnectionSearch("EZE", "QXY", new ConnectionRules(1, Duration.ofHours(2), null, null),
+                TestLegs.index(legs)).search(result::add);
+
+        Assert.assertTrue(result.isEmpty());
+        Assert.assertTrue(AirportIds.idOf("QXY") == -1);
+    }
+}
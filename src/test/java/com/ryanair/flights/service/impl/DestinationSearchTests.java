@@ -0,0 +1,120 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.model.AirportIds;
+import com.ryanair.flights.model.DestinationResponse;
+import com.ryanair.flights.model.Leg;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class DestinationSearchTests {
+
+    LocalDateTime morning = LocalDateTime.of(2019, 1, 15, 6, 0);
+
+    Leg ezeRio = new Leg("EZE", "RIO", morning, morning.plusHours(2));
+    Leg rioSao = new Leg("RIO", "SAO", morning.plusHours(5), morning.plusHours(6));
+    Leg saoMdq = new Leg("SAO", "MDQ", morning.plusHours(9), morning.plusHours(11));
+    Leg rioMdq = new Leg("RIO", "MDQ", morning.plusHours(5), morning.plusHours(7));
+    Leg saoEze = new Leg("SAO", "EZE", morning.plusHours(9), morning.plusHours(10));
+    Leg earlySaoMdq = new Leg("SAO", "MDQ", morning.plusHours(6), morning.plusHours(7));
+    List<Leg> legs = Stream.of(ezeRio, rioSao, saoMdq, rioMdq, saoEze, earlySaoMdq).collect(Collectors.toList());
+
+    private List<DestinationResponse> search(ConnectionRules rules, int maxOptions) {
+        return new DestinationSearch("EZE", rules, TestLegs.index(legs), maxOptions).search();
+    }
+
+    /**
+     * Should find every destination once, ordered by earliest arrival, with its options earliest arrival first and
+     * never back to the departure airport.
+     */
+    @Test
+    public void searchTwoStops() {
+        List<DestinationResponse> result = search(new ConnectionRules(2, Duration.ofHours(2), null, null), 10);
+
+        Assert.assertTrue(result.size() == 3);
+        Assert.assertTrue(result.get(0).getArrivalAirport().equals("RIO"));
+        Assert.assertTrue(result.get(0).getFlights().get(0).getStops() == 0);
+        Assert.assertTrue(result.get(1).getArrivalAirport().equals("SAO"));
+        Assert.assertTrue(result.get(2).getArrivalAirport().equals("MDQ"));
+        Assert.assertTrue(result.get(2).getEarliestArrival().equals(rioMdq.getArrivalDateTime()));
+        Assert.assertTrue(result.get(2).getFlights().size() == 2);
+        Assert.assertTrue(result.get(2).getFlights().get(0).getLegs().get(1).equals(rioMdq));
+        Assert.assertTrue(result.get(2).getFlights().get(1).getStops() == 2);
+        Assert.assertTrue(result.get(2).getFlights().get(1).getLegs().get(2).equals(saoMdq));
+    }
+
+    /**
+     * Should not go beyond maxStops.
+     */
+    @Test
+    public void searchOneStop() {
+        List<DestinationResponse> result = search(new ConnectionRules(1, Duration.ofHours(2), null, null), 10);
+
+        Assert.assertTrue(result.size() == 3);
+        Assert.assertTrue(result.get(2).getFlights().size() == 1);
+    }
+
+    /**
+     * Should keep only the earliest arriving options of every destination.
+     */
+    @Test
+    public void searchKeepsEarliestOptions() {
+        List<DestinationResponse> result = search(new ConnectionRules(2, Duration.ofHours(2), null, null), 1);
+
+        Assert.assertTrue(result.get(2).getFlights().size() == 1);
+        Assert.assertTrue(result.get(2).getFlights().get(0).getLegs().get(1).equals(rioMdq));
+    }
+
+    /**
+     * Should honour the trip duration limit on every trip.
+     */
+    @Test
+    public void searchWithinLimits() {
+        List<DestinationResponse> result = search(new ConnectionRules(2, Duration.ofHours(2), null,
+                Duration.ofHours(6)), 10);
+
+        Assert.assertTrue(result.size() == 2);
+        Assert.assertTrue(result.stream().noneMatch(d -> d.getArrivalAirport().equals("MDQ")));
+    }
+
+    /**
+     * Should keep extending a trip dropped for its own airport, while it can still reach an airport that would keep it.
+     */
+    @Test
+    public void searchExtendsTripsStillUseful() {
+        Leg lateEzeRio = new Leg("EZE", "RIO", morning.plusHours(2), morning.plusHours(4));
+        Leg rioJfk = new Leg("RIO", "JFK", morning.plusHours(7), morning.plusHours(9));
+        List<DestinationResponse> result = new DestinationSearch("EZE", new ConnectionRules(1, Duration.ofHours(2),
+                Duration.ofHours(4), null), TestLegs.index(Stream.of(ezeRio, lateEzeRio, rioJfk)
+                .collect(Collectors.toList())), 1).search();
+
+        Assert.assertTrue(result.size() == 2);
+        Assert.assertTrue(result.get(0).getFlights().get(0).getLegs().get(0).equals(ezeRio));
+        Assert.assertTrue(result.get(1).getArrivalAirport().equals("JFK"));
+        Assert.assertTrue(result.get(1).getFlights().get(0).getLegs().get(0).equals(lateEzeRio));
+    }
+
+    /**
+     * Should return nothing when no leg leaves the departure airport.
+     */
+    @Test
+    public void searchNoLegs() {
+        Assert.assertTrue(new DestinationSearch("JFK", new ConnectionRules(1, Duration.ofHours(2), null, null),
+                TestLegs.index(legs), 10).search().isEmpty());
+    }
+
+    /**
+     * Should return nothing for an airport never seen, without giving it an id.
+     */
+    @Test
+    public void searchUnknownAirport() {
+        Assert.assertTrue(new DestinationSearch("QXZ", new ConnectionRules(1, Duration.ofHours(2), null, null),
+                TestLegs.index(legs), 10).search().isEmpty());
+        Assert.assertTrue(AirportIds.idOf("QXZ") == -1);
+    }
+}
@@ -0,0 +1,61 @@
+package com.ryanair.flights.service.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FetchLimiterTests {
+
+    FetchLimiter fetchLimiter = new FetchLimiter(2, Runnable::run);
+
+    /**
+     * Should start the queued fetches in order as the running ones complete, never more than permitted at once.
+     */
+    @Test
+    public void submitStartsQueuedFetchesAsRunningOnesComplete() {
+        List<CompletableFuture<Integer>> upstream = new ArrayList<>();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(fetchLimiter.submit(() -> {
+                CompletableFuture<Integer> fetch = new CompletableFuture<>();
+                upstream.add(fetch);
+                return fetch;
+            }));
+        }
+
+        Assert.assertTrue(upstream.size() == 2);
+        upstream.get(1).complete(1);
+        Assert.assertTrue(results.get(1).join() == 1);
+        Assert.assertTrue(upstream.size() == 3);
+        upstream.get(0).completeExceptionally(new IllegalStateException("upstream down"));
+        Assert.assertTrue(results.get(0).isCompletedExceptionally());
+        upstream.get(2).complete(2);
+        Assert.assertTrue(results.get(2).join() == 2);
+    }
+
+    /**
+     * Should never start a fetch cancelled while queued, leaving its permit to the next one.
+     */
+    @Test
+    public void submitSkipsCancelledFetches() {
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        fetchLimiter.submit(() -> first);
+        fetchLimiter.submit(CompletableFuture::new);
+        CompletableFuture<Integer> cancelled = fetchLimiter.submit(() -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture(0);
+        });
+        CompletableFuture<Integer> last = fetchLimiter.submit(() -> CompletableFuture.completedFuture(3));
+
+        cancelled.cancel(true);
+        first.complete(1);
+
+        Assert.assertTrue(started.get() == 0);
+        Assert.assertTrue(last.join() == 3);
+    }
+}
@@ -1,5 +1,6 @@
 package com.ryanair.flights.service.impl;
 
+import com.ryanair.flights.configuration.SearchProperties;
 import com.ryanair.flights.exception.RestClientException;
 import com.ryanair.flights.exception.ServiceException;
 import com.ryanair.flights.exception.ValidationException;
@@ -7,21 +8,33 @@ import com.ryanair.flights.model.*;
 import com.ryanair.flights.service.RouteServiceI;
 import com.ryanair.flights.service.ScheduleServiceI;
 import com.ryanair.flights.validation.FlightServiceValidation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
 
 @RunWith(SpringRunner.class)
 public class FlightServiceTests {
@@ -35,7 +48,8 @@ public class FlightServiceTests {
     @Mock
     FlightServiceValidation flightServiceValidation;
 
-    @InjectMocks
+    private ExecutorService batchExecutor;
+
     private FlightService flightService;
 
     Route routeDep = new Route("EZE", "RIO", null, false, false, "RYANAIR", null);
@@ -59,7 +73,20 @@ public class FlightServiceTests {
     Schedule scheduleJan = new Schedule(2019, 1, Stream.of(day15, day30).collect(Collectors.toList()));
     Schedule scheduleFeb = new Schedule(2019, 2, Stream.of(day1, day15).collect(Collectors.toList()));
 
-    List<Schedule> schedules = Stream.of(scheduleJan, scheduleFeb).collect(Collectors.toList());
+    List<ScheduleView> schedules = Stream.of(MonthSchedule.of(2019, 1, scheduleJan).view(),
+            MonthSchedule.of(2019, 2, scheduleFeb).view()).collect(Collectors.toList());
+
+    @Before
+    public void beforeEachTest() {
+        batchExecutor = Executors.newFixedThreadPool(2);
+        flightService = new FlightService(routeService, scheduleService, flightServiceValidation, batchExecutor,
+                new SearchProperties(), new SimpleMeterRegistry());
+    }
+
+    @After
+    public void afterEachTest() {
+        batchExecutor.shutdownNow();
+    }
 
     /**
      * Should return a List of FlightResponse with stops set as 0 for the first one and 1 for the rest, for 1 stop
@@ -67,11 +94,15 @@ public class FlightServiceTests {
      */
     @Test
     public void  findInterconnectionsHappyPath() throws RestClientException, ValidationException, ServiceException {
-        List<Route> allRoutes = Stream.of(routeDep, routeArr, routeRand, routeDirect).collect(Collectors.toList());
-        given(routeService.getRoutes()).willReturn(allRoutes);
-        given(scheduleService.getSchedules("EZE",  "MDQ", jan2019, feb2019)).willReturn(schedules);
-        given(scheduleService.getSchedules("EZE",  "RIO", jan2019, feb2019)).willReturn(schedules);
-        given(scheduleService.getSchedules("RIO",  "MDQ", jan2019, feb2019)).willReturn(schedules);
+        RouteGraph allRoutes = RouteGraph.of(Stream.of(routeDep, routeArr, routeRand, routeDirect)
+                .collect(Collectors.toList()));
+        given(routeService.getRouteGraph()).willReturn(allRoutes);
+        given(scheduleService.getSchedulesAsync("EZE",  "MDQ", jan2019, feb2019))
+                .willReturn(completedFuture(schedules));
+        given(scheduleService.getSchedulesAsync("EZE",  "RIO", jan2019, feb2019))
+                .willReturn(completedFuture(schedules));
+        given(scheduleService.getSchedulesAsync("RIO",  "MDQ", jan2019, feb2019))
+                .willReturn(completedFuture(schedules));
         given(routeService.existDirectFlight("EZE",  "MDQ", allRoutes)).willReturn(true);
         given(routeService.getConnectionRoutes("EZE", "MDQ", allRoutes)).willReturn(connections);
 
@@ -90,15 +121,134 @@ public class FlightServiceTests {
         Assert.assertTrue(legs.get(1).getArrivalAirport().equals("MDQ"));
     }
 
+    /**
+     * Should return only the requested page, ranking every direct flight on its own together with the one stop
+     * flights, ordered by departure.
+     */
+    @Test
+    public void findInterconnectionsPaged() throws RestClientException, ValidationException, ServiceException {
+        RouteGraph allRoutes = RouteGraph.of(Stream.of(routeDep, routeArr, routeRand, routeDirect)
+                .collect(Collectors.toList()));
+        given(routeService.getRouteGraph()).willReturn(allRoutes);
+        given(scheduleService.getSchedulesAsync(any(), any(), any(), any()))
+                .willReturn(completedFuture(schedules));
+        given(routeService.existDirectFlight("EZE",  "MDQ", allRoutes)).willReturn(true);
+        given(routeService.getConnectionRoutes("EZE", "MDQ", allRoutes)).willReturn(connections);
+
+        List<FlightResponse> all = flightService.findInterconnections("EZE", "MDQ", jan2019, feb2019,
+                new SearchOptions(null, 0, SearchOptions.Sort.DEPARTURE));
+        List<FlightResponse> page = flightService.findInterconnections("EZE", "MDQ", jan2019, feb2019,
+                new SearchOptions(3, 1, SearchOptions.Sort.DEPARTURE));
+
+        Assert.assertTrue(all.stream().filter(r -> r.getStops() == 0).allMatch(r -> r.getLegs().size() == 1));
+        Assert.assertTrue(page.size() == 3);
+        Assert.assertTrue(page.equals(all.subList(1, 4)));
+        for (int i = 1; i < all.size(); i++) {
+            Assert.assertFalse(all.get(i).getLegs().get(0).getDepartureDateTime()
+                    .isBefore(all.get(i - 1).getLegs().get(0).getDepartureDateTime()));
+        }
+        then(flightServiceValidation).should(times(2)).validateSearchOptions(any());
+    }
+
+    /**
+     * Should use the multi stop search when more than one stop is requested, fetching the routes it needs.
+     */
+    @Test
+    public void findInterconnectionsMultiStop() throws RestClientException, ValidationException, ServiceException {
+        RouteGraph allRoutes = RouteGraph.of(Stream.of(routeDep, routeArr, routeRand).collect(Collectors.toList()));
+        given(routeService.getRouteGraph()).willReturn(allRoutes);
+        given(scheduleService.getSchedulesAsync(any(), any(), any(), any()))
+                .willReturn(completedFuture(schedules));
+        given(routeService.getConnectionPairs("EZE", "MDQ", 2, allRoutes)).willReturn(Stream.of(
+                AirportPair.of(routeDep), AirportPair.of(routeArr)).collect(Collectors.toSet()));
+
+        List<FlightResponse> result = flightService.findInterconnections("EZE", "MDQ", jan2019, feb2019,
+                new SearchOptions(null, 0, null, null, null, null, 2));
+
+        Assert.assertTrue(result.size() > 1);
+        Assert.assertTrue(result.get(0).getStops() == 0);
+        Assert.assertTrue(result.stream().skip(1).allMatch(r -> r.getStops() == 1
+                && r.getLegs().get(0).getDepartureAirport().equals("EZE")
+                && r.getLegs().get(1).getArrivalAirport().equals("MDQ")));
+        then(routeService).should(times(0)).getConnectionRoutes(any(), any(), any());
+    }
+
+    /**
+     * Should fetch every reachable route once and return every destination ordered by earliest arrival, with the
+     * direct flights to the hub and the one stop flights beyond it.
+     */
+    @Test
+    public void findDestinationsHappyPath() throws RestClientException, ValidationException, ServiceException {
+        RouteGraph allRoutes = RouteGraph.of(Stream.of(routeDep, routeArr, routeRand).collect(Collectors.toList()));
+        given(routeService.getRouteGraph()).willReturn(allRoutes);
+        given(scheduleService.getSchedulesAsync(any(), any(), any(), any()))
+                .willReturn(completedFuture(schedules));
+        given(routeService.getReachablePairs("EZE", 1, allRoutes)).willReturn(Stream.of(AirportPair.of(routeDep),
+                AirportPair.of(routeArr), AirportPair.of(routeRand)).collect(Collectors.toSet()));
+
+        List<DestinationResponse> result = flightService.findDestinations("EZE", jan2019, feb2019,
+                SearchOptions.none());
+
+        Assert.assertTrue(result.size() == 3);
+        Assert.assertTrue(result.get(0).getArrivalAirport().equals("RIO"));
+        Assert.assertTrue(result.get(0).getEarliestArrival().equals(LocalDateTime.of(2019, 1, 15, 14, 0)));
+        Assert.assertTrue(result.get(0).getFlights().stream().allMatch(r -> r.getStops() == 0));
+        Assert.assertTrue(result.get(1).getArrivalAirport().equals("JFK"));
+        Assert.assertTrue(result.get(2).getArrivalAirport().equals("MDQ"));
+        Assert.assertTrue(result.get(2).getFlights().stream().allMatch(r -> r.getStops() == 1
+                && r.getLegs().get(0).getDepartureAirport().equals("EZE")));
+        then(scheduleService).should(times(3)).getSchedulesAsync(any(), any(), any(), any());
+    }
+
+    /**
+     * Should keep up to limit flights per destination.
+     */
+    @Test
+    public void findDestinationsLimited() throws RestClientException, ValidationException, ServiceException {
+        RouteGraph allRoutes = RouteGraph.of(Stream.of(routeDep, routeArr).collect(Collectors.toList()));
+        given(routeService.getRouteGraph()).willReturn(allRoutes);
+        given(scheduleService.getSchedulesAsync(any(), any(), any(), any()))
+                .willReturn(completedFuture(schedules));
+        given(routeService.getReachablePairs("EZE", 1, allRoutes)).willReturn(Stream.of(AirportPair.of(routeDep),
+                AirportPair.of(routeArr)).collect(Collectors.toSet()));
+
+        List<DestinationResponse> result = flightService.findDestinations("EZE", jan2019, feb2019,
+                new SearchOptions(1, 0, null, null, null, null, null));
+
+        Assert.assertTrue(result.size() == 2);
+        Assert.assertTrue(result.stream().allMatch(d -> d.getFlights().size() == 1));
+    }
+
+    /**
+     * Should reject a destinations search reaching more airport pairs than allowed without fetching any schedule.
+     */
+    @Test
+    public void findDestinationsTooManyPairs() throws RestClientException, ValidationException, ServiceException {
+        RouteGraph allRoutes = RouteGraph.of(Stream.of(routeDep, routeArr).collect(Collectors.toList()));
+        given(routeService.getRouteGraph()).willReturn(allRoutes);
+        given(routeService.getReachablePairs("EZE", 1, allRoutes)).willReturn(Stream.of(AirportPair.of(routeDep),
+                AirportPair.of(routeArr)).collect(Collectors.toSet()));
+        willThrow(new ValidationException("Destinations search reaching 2 airport pairs is larger than the maximum."))
+                .given(flightServiceValidation).validateDestinationPairs(2);
+
+        try {
+            flightService.findDestinations("EZE", jan2019, feb2019, SearchOptions.none());
+            Assert.fail();
+        } catch (ValidationException e) {
+            then(scheduleService).should(times(0)).getSchedulesAsync(any(), any(), any(), any());
+        }
+    }
+
     /**
      * Should return a List of FlightResponse with stops set as 1, 2 legs and departure airport "EZE" on leg 1 and
      * arrival airport "MDQ" on leg 2.
      */
     @Test
     public void getConnectingFlightsHappyPath() throws ValidationException, ServiceException {
-        List<Route> allRoutes = Stream.of(routeDep, routeArr, routeRand).collect(Collectors.toList());
+        RouteGraph allRoutes = RouteGraph.of(Stream.of(routeDep, routeArr, routeRand).collect(Collectors.toList()));
         given(routeService.getConnectionRoutes("EZE", "MDQ", allRoutes)).willReturn(connections);
-        given(scheduleService.getSchedules(any(), any(), any(), any())).willReturn(schedules);
+        given(scheduleService.getSchedulesAsync(any(), any(), any(), any()))
+                .willReturn(completedFuture(schedules));
 
         List<FlightResponse> result = flightService.getConnectingFlights("EZE", "MDQ", jan2019, feb2019, allRoutes);
 
@@ -111,12 +261,62 @@ public class FlightServiceTests {
         Assert.assertTrue(result.get(0).getLegs().get(1).getArrivalAirport().equals("MDQ"));
     }
 
+    /**
+     * Should only combine legs within the layover and trip duration limits.
+     */
+    @Test
+    public void getConnectingFlightsWithinLimits() throws ValidationException, ServiceException {
+        RouteGraph allRoutes = RouteGraph.of(Stream.of(routeDep, routeArr, routeRand).collect(Collectors.toList()));
+        given(routeService.getConnectionRoutes("EZE", "MDQ", allRoutes)).willReturn(connections);
+        given(scheduleService.getSchedulesAsync(any(), any(), any(), any()))
+                .willReturn(completedFuture(schedules));
+
+        List<FlightResponse> unbounded = new ArrayList<>();
+        flightService.getConnectingFlights("EZE", "MDQ", jan2019, feb2019, allRoutes, null,
+                new ConnectionRules(1, Duration.ofHours(2), null, null), ConnectionFilter.NONE, unbounded::add);
+        List<FlightResponse> bounded = new ArrayList<>();
+        flightService.getConnectingFlights("EZE", "MDQ", jan2019, feb2019, allRoutes, null,
+                new ConnectionRules(1, Duration.ofHours(2), Duration.ofHours(4), Duration.ofHours(6)),
+                ConnectionFilter.NONE, bounded::add);
+
+        // Only the 14:00 arrival to the 17:00 departure of the same day fits.
+        Assert.assertTrue(unbounded.size() > bounded.size());
+        Assert.assertTrue(bounded.size() == 4);
+        for (FlightResponse response : bounded) {
+            Leg first = response.getLegs().get(0);
+            Leg second = response.getLegs().get(1);
+            Assert.assertTrue(Duration.between(first.getArrivalDateTime(), second.getDepartureDateTime())
+                    .compareTo(Duration.ofHours(4)) <= 0);
+            Assert.assertTrue(Duration.between(first.getDepartureDateTime(), second.getArrivalDateTime())
+                    .compareTo(Duration.ofHours(6)) <= 0);
+        }
+    }
+
+    /**
+     * Should fetch a leg shared by several hubs only once.
+     */
+    @Test
+    public void getConnectingFlightsFetchesSharedLegsOnce() throws ValidationException, ServiceException {
+        RouteGraph allRoutes = RouteGraph.of(Stream.of(routeDep, routeArr, routeRand).collect(Collectors.toList()));
+        List<ConnectionRoute> sharedLegs = Stream.of(new ConnectionRoute(routeDep, routeArr),
+                new ConnectionRoute(routeDep, routeArr)).collect(Collectors.toList());
+        given(routeService.getConnectionRoutes("EZE", "MDQ", allRoutes)).willReturn(sharedLegs);
+        given(scheduleService.getSchedulesAsync(any(), any(), any(), any()))
+                .willReturn(completedFuture(schedules));
+
+        List<FlightResponse> result = flightService.getConnectingFlights("EZE", "MDQ", jan2019, feb2019, allRoutes);
+
+        Assert.assertFalse(result.isEmpty());
+        then(scheduleService).should(times(1)).getSchedulesAsync("EZE", "RIO", jan2019, feb2019);
+        then(scheduleService).should(times(1)).getSchedulesAsync("RIO", "MDQ", jan2019, feb2019);
+    }
+
     /**
      * Should return an empty List if there are no connections.
      */
     @Test
     public void getConnectingFlightsNoConnections() throws ValidationException, ServiceException {
-        List<Route> allRoutes = Stream.of(routeDep, routeArr, routeRand).collect(Collectors.toList());
+        RouteGraph allRoutes = RouteGraph.of(Stream.of(routeDep, routeArr, routeRand).collect(Collectors.toList()));
         given(routeService.getConnectionRoutes("EZE", "MDQ", allRoutes)).willReturn(new ArrayList<>());
 
         List<FlightResponse> result = flightService.getConnectingFlights("EZE", "MDQ", jan2019, feb2019, allRoutes);
@@ -129,22 +329,45 @@ public class FlightServiceTests {
      */
     @Test
     public void getConnectingFlightsNoSchedules() throws ValidationException, ServiceException {
-        List<Route> allRoutes = Stream.of(routeDep, routeArr, routeRand).collect(Collectors.toList());
+        RouteGraph allRoutes = RouteGraph.of(Stream.of(routeDep, routeArr, routeRand).collect(Collectors.toList()));
         given(routeService.getConnectionRoutes("EZE", "MDQ", allRoutes)).willReturn(connections);
-        given(scheduleService.getSchedules(any(), any(), any(), any())).willReturn(new ArrayList<>());
+        given(scheduleService.getSchedulesAsync(any(), any(), any(), any()))
+                .willReturn(completedFuture(new ArrayList<>()));
 
         List<FlightResponse> result = flightService.getConnectingFlights("EZE", "MDQ", jan2019, feb2019, allRoutes);
 
         Assert.assertTrue(result.isEmpty());
     }
 
+    /**
+     * Should fail as soon as an airport pair fails to be fetched, no longer waiting for the other pairs.
+     */
+    @Test
+    public void getSchedulesFailsFastAndCancelsPendingPairs() throws Exception {
+        CompletableFuture<List<ScheduleView>> pending = new CompletableFuture<>();
+        CompletableFuture<List<ScheduleView>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new ServiceException("Error during Schedule fetching.", null));
+        given(scheduleService.getSchedulesAsync("EZE", "RIO", jan2019, feb2019)).willReturn(pending);
+        given(scheduleService.getSchedulesAsync("RIO", "MDQ", jan2019, feb2019)).willReturn(failed);
+
+        try {
+            flightService.getSchedules(Arrays.asList(AirportPair.of(routeDep), AirportPair.of(routeArr)), jan2019,
+                    feb2019);
+            Assert.fail();
+        } catch (ServiceException e) {
+            Assert.assertTrue(pending.isCancelled());
+        }
+    }
+
     /**
      * Should return a single FlightResponse and it's Legs.
      */
     @Test
     public void getDirectFlightsHappyPath() throws ValidationException, ServiceException {
-        List<Schedule> schedules = Stream.of(scheduleJan, scheduleFeb).collect(Collectors.toList());
-        given(scheduleService.getSchedules(any(), any(), any(), any())).willReturn(schedules);
+        List<ScheduleView> schedules = Stream.of(MonthSchedule.of(2019, 1, scheduleJan).view(),
+            MonthSchedule.of(2019, 2, scheduleFeb).view()).collect(Collectors.toList());
+        given(scheduleService.getSchedulesAsync(any(), any(), any(), any()))
+                .willReturn(completedFuture(schedules));
 
         FlightResponse result = flightService.getDirectFlights("EZE", "MDQ", jan2019, feb2019);
 
@@ -157,11 +380,137 @@ public class FlightServiceTests {
      */
     @Test
     public void getDirectFlightsNoSchedules() throws ValidationException, ServiceException {
-        given(scheduleService.getSchedules(any(), any(), any(), any())).willReturn(new ArrayList<>());
+        given(scheduleService.getSchedulesAsync(any(), any(), any(), any()))
+                .willReturn(completedFuture(new ArrayList<>()));
 
         FlightResponse result = flightService.getDirectFlights("EZE", "MDQ", jan2019, feb2019);
 
         Assert.assertTrue(result.getStops() == 0);
         Assert.assertTrue(result.getLegs().size() == 0);
     }
+
+    /**
+     * Should fetch every airport pair shared by the queries of a batch once, with the months of all of them, and hand
+     * over a result per query in their order, the invalid ones with their error.
+     */
+    @Test
+    public void findInterconnectionsBatchFetchesSharedPairsOnce() throws Exception {
+        RouteGraph allRoutes = RouteGraph.of(Stream.of(routeDep, routeArr, routeRand, routeDirect)
+                .collect(Collectors.toList()));
+        Map<YearMonth, MonthSchedule> schedulesByMonth = new HashMap<>();
+        schedulesByMonth.put(YearMonth.of(2019, 1), MonthSchedule.of(2019, 1, scheduleJan));
+        schedulesByMonth.put(YearMonth.of(2019, 2), MonthSchedule.of(2019, 2, scheduleFeb));
+        given(routeService.getRouteGraph()).willReturn(allRoutes);
+        given(routeService.existDirectFlight("EZE", "MDQ", allRoutes)).willReturn(true);
+        given(routeService.getConnectionRoutes("EZE", "MDQ", allRoutes)).willReturn(connections);
+        given(scheduleService.getMonthSchedulesAsync(any(), any(), any()))
+                .willReturn(completedFuture(schedulesByMonth));
+        given(scheduleService.filterSchedules(any(), any(), any())).willReturn(schedules);
+        willThrow(new ValidationException("Airport IATA code: XXXX is not valid."))
+                .given(flightServiceValidation).validateInterconnectionsParameters(eq("XXXX"), any(), any(), any());
+
+        List<InterconnectionResult> results = new ArrayList<>();
+        flightService.findInterconnections(Arrays.asList(
+                new InterconnectionQuery("EZE", "MDQ", jan2019, feb2019),
+                new InterconnectionQuery("XXXX", "MDQ", jan2019, feb2019),
+                new InterconnectionQuery("EZE", "MDQ", jan2019, jan2019.plusDays(1))), results::add);
+
+        Assert.assertTrue(results.size() == 3);
+        Assert.assertTrue(results.get(0).getQuery() == 0);
+        Assert.assertTrue(results.get(1).getQuery() == 1);
+        Assert.assertTrue(results.get(2).getQuery() == 2);
+        Assert.assertTrue(null != results.get(1).getError());
+        Assert.assertTrue(null == results.get(2).getError());
+        Assert.assertTrue(results.get(0).getFlights().get(0).getStops() == 0);
+        Assert.assertTrue(results.get(0).getFlights().get(1).getStops() == 1);
+        Set<YearMonth> months = new TreeSet<>(Arrays.asList(YearMonth.of(2019, 1), YearMonth.of(2019, 2)));
+        then(scheduleService).should(times(1)).getMonthSchedulesAsync("EZE", "RIO", months);
+        then(scheduleService).should(times(1)).getMonthSchedulesAsync("RIO", "MDQ", months);
+        then(scheduleService).should(times(1)).getMonthSchedulesAsync("EZE", "MDQ", months);
+        then(routeService).should(times(1)).getRouteGraph();
+    }
+
+    /**
+     * Should wait for a pair that hangs up to the timeout once for the whole batch, failing every query sharing it.
+     */
+    @Test
+    public void findInterconnectionsBatchTimesOutOnce() throws Exception {
+        SearchProperties searchProperties = new SearchProperties();
+        searchProperties.setTimeout(Duration.ofMillis(200));
+        flightService = new FlightService(routeService, scheduleService, flightServiceValidation, batchExecutor,
+                searchProperties, new SimpleMeterRegistry());
+        RouteGraph allRoutes = RouteGraph.of(Collections.singletonList(routeDirect));
+        given(routeService.getRouteGraph()).willReturn(allRoutes);
+        given(routeService.existDirectFlight("EZE", "MDQ", allRoutes)).willReturn(true);
+        given(scheduleService.getMonthSchedulesAsync(any(), any(), any())).willReturn(new CompletableFuture<>());
+
+        List<InterconnectionQuery> queries = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            queries.add(new InterconnectionQuery("EZE", "MDQ", jan2019, feb2019));
+        }
+        List<InterconnectionResult> results = new ArrayList<>();
+        long start = System.nanoTime();
+        flightService.findInterconnections(queries, results::add);
+
+        Assert.assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000);
+        Assert.assertTrue(results.size() == 10);
+        Assert.assertTrue(results.stream().allMatch(result -> null != result.getError()));
+    }
+
+    /**
+     * Should give a batch with more airport pairs than fetched at once the search timeout per round of fetches, never
+     * fetching more than batchConcurrency pairs at once.
+     */
+    @Test
+    public void findInterconnectionsBatchWaitsPerRoundOfFetches() throws Exception {
+        SearchProperties searchProperties = new SearchProperties();
+        searchProperties.setTimeout(Duration.ofMillis(300));
+        searchProperties.setBatchConcurrency(2);
+        flightService = new FlightService(routeService, scheduleService, flightServiceValidation, batchExecutor,
+                searchProperties, new SimpleMeterRegistry());
+        RouteGraph allRoutes = RouteGraph.of(Collections.singletonList(routeDirect));
+        given(routeService.getRouteGraph()).willReturn(allRoutes);
+        given(routeService.existDirectFlight(any(), any(), eq(allRoutes))).willReturn(true);
+        ExecutorService upstream = Executors.newCachedThreadPool();
+        AtomicInteger fetching = new AtomicInteger();
+        AtomicInteger maxFetching = new AtomicInteger();
+        given(scheduleService.getMonthSchedulesAsync(any(), any(), any())).willAnswer(invocation -> {
+            maxFetching.accumulateAndGet(fetching.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                fetching.decrementAndGet();
+                return Collections.<YearMonth, MonthSchedule>emptyMap();
+            }, upstream);
+        });
+
+        List<InterconnectionQuery> queries = new ArrayList<>();
+        for (String arrival : Arrays.asList("MDQ", "RIO", "JFK", "BCN", "STN", "DUB")) {
+            queries.add(new InterconnectionQuery("EZE", arrival, jan2019, feb2019));
+        }
+        List<InterconnectionResult> results = new ArrayList<>();
+        try {
+            flightService.findInterconnections(queries, results::add);
+        } finally {
+            upstream.shutdownNow();
+        }
+
+        Assert.assertTrue(results.size() == 6);
+        Assert.assertTrue(results.stream().allMatch(result -> null == result.getError()));
+        Assert.assertTrue(maxFetching.get() == 2);
+    }
+
+    /**
+     * Should reject an empty batch.
+     */
+    @Test(expected = ValidationException.class)
+    public void findInterconnectionsBatchEmpty() throws Exception {
+        willThrow(new ValidationException("Batch must hold at least one query."))
+                .given(flightServiceValidation).validateBatchSize(0);
+
+        flightService.findInterconnections(Collections.emptyList(), result -> { });
+    }
 }
@@ -0,0 +1,99 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.model.AirportIds;
+import com.ryanair.flights.model.EpochMinutes;
+import com.ryanair.flights.model.Leg;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class LegIndexTests {
+
+    LocalDateTime morning = LocalDateTime.of(2019, 1, 15, 8, 0);
+    LocalDateTime noon = LocalDateTime.of(2019, 1, 15, 12, 0);
+    LocalDateTime evening = LocalDateTime.of(2019, 1, 15, 20, 0);
+
+    Leg eveningLeg = new Leg("RIO", "MDQ", evening, evening.plusHours(1));
+    Leg morningLeg = new Leg("RIO", "MDQ", morning, morning.plusHours(1));
+    Leg noonLeg = new Leg("RIO", "MDQ", noon, noon.plusHours(1));
+    Leg otherHubLeg = new Leg("JFK", "MDQ", noon, noon.plusHours(1));
+
+    LegIndex legIndex = TestLegs.index(Stream.of(eveningLeg, morningLeg, noonLeg, otherHubLeg)
+            .collect(Collectors.toList()));
+
+    /**
+     * Gets the legs departing from an airport strictly after a time and not later than another, unbounded when null.
+     */
+    private List<Leg> departingBetween(String airport, LocalDateTime after, LocalDateTime notAfter) {
+        int id = AirportIds.idOf(airport);
+        int end = legIndex.endDepartingNotAfter(id, null == notAfter ? Integer.MAX_VALUE : EpochMinutes.of(notAfter));
+        List<Leg> legs = new ArrayList<>();
+        for (int i = legIndex.firstDepartingAfter(id, EpochMinutes.of(after)); i < end; i++) {
+            legs.add(legIndex.toLeg(i));
+        }
+        return legs;
+    }
+
+    /**
+     * Should return the legs of the given airport departing after the given time, ordered by departure time.
+     */
+    @Test
+    public void departingAfterHappyPath() {
+        List<Leg> result = departingBetween("RIO", morning, null);
+
+        Assert.assertTrue(result.size() == 2);
+        Assert.assertTrue(result.get(0).equals(noonLeg));
+        Assert.assertTrue(result.get(1).equals(eveningLeg));
+    }
+
+    /**
+     * Should not return a leg departing exactly at the given time.
+     */
+    @Test
+    public void departingAfterExcludesSameTime() {
+        List<Leg> result = departingBetween("RIO", noon, null);
+
+        Assert.assertTrue(result.size() == 1);
+        Assert.assertTrue(result.get(0).equals(eveningLeg));
+    }
+
+    /**
+     * Should return an empty List when every leg departs before the given time.
+     */
+    @Test
+    public void departingAfterNoLaterLegs() {
+        Assert.assertTrue(departingBetween("RIO", evening, null).isEmpty());
+    }
+
+    /**
+     * Should return an empty List for an airport without legs.
+     */
+    @Test
+    public void departingAfterUnknownAirport() {
+        Assert.assertTrue(departingBetween("EZE", morning, null).isEmpty());
+    }
+
+    /**
+     * Should return the legs departing strictly after the lower bound and not later than the upper bound.
+     */
+    @Test
+    public void departingBetweenBoundsBothEnds() {
+        List<Leg> result = departingBetween("RIO", morning, noon);
+
+        Assert.assertTrue(result.size() == 1);
+        Assert.assertTrue(result.get(0).equals(noonLeg));
+    }
+
+    /**
+     * Should return an empty List when the upper bound is before the lower bound.
+     */
+    @Test
+    public void departingBetweenInvertedBounds() {
+        Assert.assertTrue(departingBetween("RIO", evening, morning).isEmpty());
+    }
+}
@@ -0,0 +1,106 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.model.EpochMinutes;
+import com.ryanair.flights.model.FlightResponse;
+import com.ryanair.flights.model.Leg;
+import com.ryanair.flights.model.SearchOptions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class ResultWindowTests {
+
+    LocalDateTime morning = LocalDateTime.of(2019, 1, 15, 8, 0);
+    LocalDateTime noon = LocalDateTime.of(2019, 1, 15, 12, 0);
+    LocalDateTime evening = LocalDateTime.of(2019, 1, 15, 20, 0);
+
+    FlightResponse longMorning = new FlightResponse(1, Arrays.asList(
+            new Leg("EZE", "RIO", morning, morning.plusHours(1)),
+            new Leg("RIO", "MDQ", morning.plusHours(5), morning.plusHours(14))));
+    FlightResponse shortNoon = new FlightResponse(0, Collections.singletonList(
+            new Leg("EZE", "MDQ", noon, noon.plusHours(1))));
+    FlightResponse shortEvening = new FlightResponse(0, Collections.singletonList(
+            new Leg("EZE", "MDQ", evening, evening.plusHours(2))));
+
+    private List<FlightResponse> collect(SearchOptions options) {
+        ResultWindow window = new ResultWindow(options);
+        Stream.of(shortEvening, longMorning, shortNoon).forEach(window);
+        return window.getResults();
+    }
+
+    /**
+     * Should keep only the earliest departures when limited.
+     */
+    @Test
+    public void limitKeepsEarliestDepartures() {
+        List<FlightResponse> result = collect(new SearchOptions(2, 0, SearchOptions.Sort.DEPARTURE));
+
+        Assert.assertTrue(result.size() == 2);
+        Assert.assertTrue(result.get(0) == longMorning);
+        Assert.assertTrue(result.get(1) == shortNoon);
+    }
+
+    /**
+     * Should skip the first results of the order when an offset is given.
+     */
+    @Test
+    public void offsetSkipsFirstResults() {
+        List<FlightResponse> result = collect(new SearchOptions(1, 1, SearchOptions.Sort.DEPARTURE));
+
+        Assert.assertTrue(result.size() == 1);
+        Assert.assertTrue(result.get(0) == shortNoon);
+    }
+
+    /**
+     * Should order by earliest arrival, and by shortest duration.
+     */
+    @Test
+    public void sortByArrivalAndDuration() {
+        List<FlightResponse> byArrival = collect(new SearchOptions(null, 0, SearchOptions.Sort.ARRIVAL));
+        List<FlightResponse> byDuration = collect(new SearchOptions(null, 0, SearchOptions.Sort.DURATION));
+
+        Assert.assertTrue(byArrival.equals(Arrays.asList(shortNoon, longMorning, shortEvening)));
+        Assert.assertTrue(byDuration.equals(Arrays.asList(shortNoon, shortEvening, longMorning)));
+    }
+
+    /**
+     * Should return an empty List when the offset is past the last result.
+     */
+    @Test
+    public void offsetPastResults() {
+        Assert.assertTrue(collect(new SearchOptions(5, 3, null)).isEmpty());
+    }
+
+    /**
+     * Should reject, from its EpochMinutes, a connection not ranking before the worst result of a full window only.
+     */
+    @Test
+    public void rejectsOnlyWhenFull() {
+        ResultWindow window = new ResultWindow(new SearchOptions(2, 0, SearchOptions.Sort.DEPARTURE));
+        window.accept(shortEvening);
+        Assert.assertTrue(!window.rejects(EpochMinutes.of(evening), EpochMinutes.of(evening.plusHours(5)), 1));
+
+        Stream.of(longMorning, shortNoon).forEach(window);
+        Assert.assertTrue(window.rejects(EpochMinutes.of(evening), EpochMinutes.of(evening.plusHours(1)), 0));
+        Assert.assertTrue(window.rejects(EpochMinutes.of(noon), EpochMinutes.of(noon.plusHours(1)), 1));
+        Assert.assertTrue(!window.rejects(EpochMinutes.of(noon), EpochMinutes.of(noon.plusMinutes(30)), 1));
+        Assert.assertTrue(!window.rejects(EpochMinutes.of(morning), EpochMinutes.of(evening), 1));
+    }
+
+    /**
+     * Should compare the connection by the sort of the window.
+     */
+    @Test
+    public void rejectsByDuration() {
+        ResultWindow window = new ResultWindow(new SearchOptions(1, 0, SearchOptions.Sort.DURATION));
+        Stream.of(shortEvening, longMorning, shortNoon).forEach(window);
+
+        Assert.assertTrue(!window.rejects(EpochMinutes.of(evening), EpochMinutes.of(evening.plusMinutes(30)), 1));
+        Assert.assertTrue(window.rejects(EpochMinutes.of(morning), EpochMinutes.of(morning.plusHours(2)), 1));
+    }
+}
@@ -1,20 +1,28 @@
 package com.ryanair.flights.service.impl;
 
 import com.ryanair.flights.client.RouteClient;
+import com.ryanair.flights.model.AirportPair;
 import com.ryanair.flights.model.ConnectionRoute;
+import com.ryanair.flights.exception.RestClientException;
 import com.ryanair.flights.model.Route;
+import com.ryanair.flights.model.RouteGraph;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
 
 @RunWith(SpringRunner.class)
 public class RouteServiceTests {
@@ -22,7 +30,6 @@ public class RouteServiceTests {
     @Mock
     RouteClient routeClient;
 
-    @InjectMocks
     private RouteService routeService;
 
     Route ryanairRoute = new Route("EZE", "MDQ", null, null, null, "RYANAIR", null);
@@ -32,7 +39,12 @@ public class RouteServiceTests {
     Route route1 = new Route("EZE", "MDQ", null, null, null, "RYANAIR", null);
     Route route2 = new Route("MDQ", "MDL", null, null, null, "RYANAIR", null);
     Route route3 = new Route("EZE", "MDL", null, null, null, "RYANAIR", null);
-    List<Route> allRoutes = Stream.of(route1, route2, route3).collect(Collectors.toList());
+    RouteGraph allRoutes = RouteGraph.of(Stream.of(route1, route2, route3).collect(Collectors.toList()));
+
+    @Before
+    public void beforeEachTest() {
+        routeService = new RouteService(routeClient, new SimpleMeterRegistry());
+    }
 
     /**
      * Should filter a Route from a non RYANAIR operator.
@@ -80,6 +92,59 @@ public class RouteServiceTests {
         Assert.assertTrue(result.isEmpty());
     }
 
+    /**
+     * Should keep only the routes that are part of a trip with up to the given stops, without the direct route and
+     * without routes back to the departure airport.
+     */
+    @Test
+    public void getConnectionPairsWithinStops() {
+        RouteGraph graph = RouteGraph.of(Stream.of(
+                new Route("EZE", "RIO", null, null, null, "RYANAIR", null),
+                new Route("RIO", "SAO", null, null, null, "RYANAIR", null),
+                new Route("SAO", "MDQ", null, null, null, "RYANAIR", null),
+                new Route("RIO", "MDQ", null, null, null, "RYANAIR", null),
+                new Route("EZE", "MDQ", null, null, null, "RYANAIR", null),
+                new Route("SAO", "EZE", null, null, null, "RYANAIR", null),
+                new Route("RIO", "JFK", null, null, null, "RYANAIR", null)).collect(Collectors.toList()));
+
+        Set<AirportPair> oneStop = routeService.getConnectionPairs("EZE", "MDQ", 1, graph);
+        Set<AirportPair> twoStops = routeService.getConnectionPairs("EZE", "MDQ", 2, graph);
+
+        Assert.assertTrue(oneStop.size() == 2);
+        Assert.assertTrue(oneStop.contains(new AirportPair("EZE", "RIO")));
+        Assert.assertTrue(oneStop.contains(new AirportPair("RIO", "MDQ")));
+        Assert.assertTrue(twoStops.size() == 4);
+        Assert.assertTrue(twoStops.contains(new AirportPair("RIO", "SAO")));
+        Assert.assertTrue(twoStops.contains(new AirportPair("SAO", "MDQ")));
+    }
+
+    /**
+     * Should return every route leaving an airport reached within maxStops, without routes back to the departure
+     * airport.
+     */
+    @Test
+    public void getReachablePairsWithinStops() {
+        RouteGraph graph = RouteGraph.of(Stream.of(
+                new Route("EZE", "RIO", null, null, null, "RYANAIR", null),
+                new Route("RIO", "SAO", null, null, null, "RYANAIR", null),
+                new Route("SAO", "MDQ", null, null, null, "RYANAIR", null),
+                new Route("RIO", "MDQ", null, null, null, "RYANAIR", null),
+                new Route("EZE", "MDQ", null, null, null, "RYANAIR", null),
+                new Route("SAO", "EZE", null, null, null, "RYANAIR", null),
+                new Route("RIO", "JFK", null, null, null, "RYANAIR", null)).collect(Collectors.toList()));
+
+        Set<AirportPair> direct = routeService.getReachablePairs("EZE", 0, graph);
+        Set<AirportPair> oneStop = routeService.getReachablePairs("eze", 1, graph);
+        Set<AirportPair> twoStops = routeService.getReachablePairs("EZE", 2, graph);
+
+        Assert.assertTrue(direct.size() == 2);
+        Assert.assertTrue(oneStop.size() == 5);
+        Assert.assertTrue(oneStop.contains(new AirportPair("RIO", "JFK")));
+        Assert.assertTrue(twoStops.size() == 6);
+        Assert.assertTrue(twoStops.contains(new AirportPair("SAO", "MDQ")));
+        Assert.assertTrue(!twoStops.contains(new AirportPair("SAO", "EZE")));
+    }
+
     /**
      * Should return true if direct route exists.
      */
@@ -95,4 +160,54 @@ public class RouteServiceTests {
     public void existDirectFlightNo() {
         Assert.assertTrue(routeService.existDirectFlight("EZE", "MDL", allRoutes));
     }
+
+    /**
+     * Should find a direct route regardless of the IATA code case.
+     */
+    @Test
+    public void existDirectFlightIgnoreCase() {
+        Assert.assertTrue(routeService.existDirectFlight("eze", "mdq", allRoutes));
+    }
+
+    /**
+     * Should fetch the routes only once while a RouteGraph is available.
+     */
+    @Test
+    public void getRouteGraphFetchesOnce() throws Exception {
+        given(routeClient.getRoutes()).willReturn(Stream.of(route1, route2).collect(Collectors.toList()));
+
+        RouteGraph first = routeService.getRouteGraph();
+        RouteGraph second = routeService.getRouteGraph();
+
+        Assert.assertTrue(first == second);
+        Assert.assertTrue(first.size() == 2);
+        then(routeClient).should(times(1)).getRoutes();
+    }
+
+    /**
+     * Should swap the RouteGraph when refreshing succeeds.
+     */
+    @Test
+    public void refreshRouteGraphSwapsGraph() throws Exception {
+        given(routeClient.getRoutes()).willReturn(Stream.of(route1).collect(Collectors.toList()),
+                Stream.of(route1, route2, route3).collect(Collectors.toList()));
+
+        Assert.assertTrue(routeService.getRouteGraph().size() == 1);
+        routeService.refreshRouteGraph();
+        Assert.assertTrue(routeService.getRouteGraph().size() == 3);
+    }
+
+    /**
+     * Should keep the current RouteGraph when refreshing fails.
+     */
+    @Test
+    public void refreshRouteGraphKeepsGraphOnFailure() throws Exception {
+        given(routeClient.getRoutes()).willReturn(Stream.of(route1).collect(Collectors.toList()))
+                .willThrow(new RestClientException("", null, HttpStatus.INTERNAL_SERVER_ERROR));
+
+        RouteGraph current = routeService.getRouteGraph();
+        routeService.refreshRouteGraph();
+
+        Assert.assertTrue(routeService.getRouteGraph() == current);
+    }
 }
@@ -6,18 +6,23 @@ import com.ryanair.flights.exception.ServiceException;
 import com.ryanair.flights.exception.ValidationException;
 import com.ryanair.flights.model.Day;
 import com.ryanair.flights.model.Flight;
+import com.ryanair.flights.model.MonthSchedule;
 import com.ryanair.flights.model.Schedule;
+import com.ryanair.flights.model.ScheduleView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -29,7 +34,6 @@ public class ScheduleServiceTests {
     @Mock
     ScheduleClient scheduleClient;
 
-    @InjectMocks
     private ScheduleService scheduleService;
 
     LocalDateTime jan2019 = LocalDateTime.of(2019, 1, 15, 12, 0);
@@ -48,21 +52,25 @@ public class ScheduleServiceTests {
     Day day30 = new Day(30, flights);
     List<Day> days = Stream.of(day1, day15, day30).collect(Collectors.toList());
 
-    Schedule scheduleDep = new Schedule(2019, 1, days);
-    Schedule scheduleMid = new Schedule(2019, 4, days);
-    Schedule scheduleArr = new Schedule(2019, 8, days);
+    MonthSchedule scheduleDep = MonthSchedule.of(2019, 1, new Schedule(1, days));
+    MonthSchedule scheduleMid = MonthSchedule.of(2019, 4, new Schedule(4, days));
+    MonthSchedule scheduleArr = MonthSchedule.of(2019, 8, new Schedule(8, days));
 
     LocalDateTime from = LocalDateTime.of(2019, 6, 15, 0, 0);
     LocalDateTime fromSameYear = LocalDateTime.of(2019, 12, 15, 0, 0);
     LocalDateTime to = LocalDateTime.of(2022, 6, 15, 0, 0);
 
     @Before
-    public void beforeEachTest() throws RestClientException {
+    public void beforeEachTest() {
+        scheduleService = new ScheduleService(scheduleClient, new SimpleMeterRegistry());
         for (int month = 1; month <= 12; month++) {
             Schedule schedule = new Schedule(month, days);
-            given(scheduleClient.getSchedule("EZE", "MDQ", 2019, month)).willReturn(Optional.of(schedule));
-            given(scheduleClient.getSchedule("EZE", "MDQ", 2020, month)).willReturn(Optional.of(schedule));
-            given(scheduleClient.getSchedule("MAD", "MDQ", 2020, month)).willReturn(Optional.of(schedule));
+            given(scheduleClient.getScheduleAsync("EZE", "MDQ", 2019, month))
+                    .willReturn(CompletableFuture.completedFuture(Optional.of(MonthSchedule.of(2019, month, schedule))));
+            given(scheduleClient.getScheduleAsync("EZE", "MDQ", 2020, month))
+                    .willReturn(CompletableFuture.completedFuture(Optional.of(MonthSchedule.of(2020, month, schedule))));
+            given(scheduleClient.getScheduleAsync("MAD", "MDQ", 2020, month))
+                    .willReturn(CompletableFuture.completedFuture(Optional.of(MonthSchedule.of(2020, month, schedule))));
         }
     }
 
@@ -71,10 +79,10 @@ public class ScheduleServiceTests {
      */
     @Test
     public void getSchedulesSameYear() throws ValidationException, ServiceException {
-        List<Schedule> result = scheduleService.getSchedules("EZE", "MDQ", jan2019, aug2019);
+        List<ScheduleView> result = scheduleService.getSchedules("EZE", "MDQ", jan2019, aug2019);
 
         Assert.assertTrue(result.size() == 8);
-        Assert.assertTrue(result.get(0).getDays().size() == 2);
+        Assert.assertTrue(result.get(0).size() == 6);
     }
 
     /**
@@ -82,10 +90,10 @@ public class ScheduleServiceTests {
      */
     @Test
     public void getSchedulesSeveralYears() throws ValidationException, ServiceException {
-        List<Schedule> result = scheduleService.getSchedules("EZE", "MDQ", jan2019, dec2020);
+        List<ScheduleView> result = scheduleService.getSchedules("EZE", "MDQ", jan2019, dec2020);
 
         Assert.assertTrue(result.size() == 24);
-        Assert.assertTrue(result.get(23).getDays().size() == 2);
+        Assert.assertTrue(result.get(23).size() == 6);
     }
 
     /**
@@ -93,12 +101,12 @@ public class ScheduleServiceTests {
      */
     @Test
     public void filterNonValidFilterDaysAndFlightsForDepartureMonth() {
-        Optional<Schedule> schedule = scheduleService.filterNonValid(scheduleDep, jan2019, aug2019);
-        List<Day> filtered = schedule.get().getDays();
+        Optional<ScheduleView> schedule = scheduleService.filterNonValid(scheduleDep, jan2019, aug2019);
+        ScheduleView filtered = schedule.get();
 
-        Assert.assertTrue(filtered.size() == 2);
-        Assert.assertTrue(filtered.get(0).getFlights().size() == 2);
-        Assert.assertTrue(filtered.get(0).getFlights().get(0).getDepartureTime().equals(flight3.getDepartureTime()));
+        Assert.assertTrue(filtered.size() == 6);
+        Assert.assertTrue(filtered.getDepartureDateTime(0).getDayOfMonth() == 15);
+        Assert.assertTrue(filtered.getDepartureDateTime(0).toLocalTime().toString().equals(flight3.getDepartureTime()));
     }
 
     /**
@@ -106,12 +114,12 @@ public class ScheduleServiceTests {
      */
     @Test
     public void filterNonValidFilterNothingForMidMonth() {
-        Optional<Schedule> schedule = scheduleService.filterNonValid(scheduleMid, jan2019, aug2019);
-        List<Day> filtered = schedule.get().getDays();
+        Optional<ScheduleView> schedule = scheduleService.filterNonValid(scheduleMid, jan2019, aug2019);
+        ScheduleView filtered = schedule.get();
 
-        Assert.assertTrue(filtered.size() == 3);
-        Assert.assertTrue(filtered.get(0).getFlights().size() == 4);
-        Assert.assertTrue(filtered.get(0).getFlights().get(0).getDepartureTime().equals(flight1.getDepartureTime()));
+        Assert.assertTrue(filtered.size() == 12);
+        Assert.assertTrue(filtered.getDepartureDateTime(0).getDayOfMonth() == 1);
+        Assert.assertTrue(filtered.getDepartureDateTime(0).toLocalTime().toString().equals(flight1.getDepartureTime()));
     }
 
     /**
@@ -119,12 +127,51 @@ public class ScheduleServiceTests {
      */
     @Test
     public void filterNonValidFilterDaysAndFlightsForArrivalMonth() {
-        Optional<Schedule> schedule = scheduleService.filterNonValid(scheduleArr, jan2019, aug2019);
-        List<Day> filtered = schedule.get().getDays();
+        Optional<ScheduleView> schedule = scheduleService.filterNonValid(scheduleArr, jan2019, aug2019);
+        ScheduleView filtered = schedule.get();
+
+        Assert.assertTrue(filtered.size() == 6);
+        Assert.assertTrue(filtered.getDepartureDateTime(5).getDayOfMonth() == 15);
+        Assert.assertTrue(filtered.getDepartureDateTime(5).toLocalTime().toString().equals(flight1.getDepartureTime()));
+    }
+
+    /**
+     * filterNonValid should trim both ends of a month that is of departure and arrival.
+     */
+    @Test
+    public void filterNonValidFilterDaysAndFlightsForDepartureAndArrivalMonth() {
+        Optional<ScheduleView> schedule = scheduleService.filterNonValid(scheduleDep, jan2019,
+                LocalDateTime.of(2019, 1, 30, 12, 0));
+        ScheduleView filtered = schedule.get();
+
+        Assert.assertTrue(filtered.size() == 4);
+        Assert.assertTrue(filtered.getDepartureDateTime(0).toLocalTime().toString().equals(flight3.getDepartureTime()));
+        Assert.assertTrue(filtered.getDepartureDateTime(3).toLocalTime().toString().equals(flight1.getDepartureTime()));
+    }
+
+    /**
+     * filterNonValid should leave out the flights departing exactly at departure or at arrival.
+     */
+    @Test
+    public void filterNonValidCutsAtExactTimes() {
+        Optional<ScheduleView> schedule = scheduleService.filterNonValid(scheduleDep,
+                LocalDateTime.of(2019, 1, 15, 10, 0), LocalDateTime.of(2019, 1, 30, 10, 0));
+        ScheduleView filtered = schedule.get();
 
         Assert.assertTrue(filtered.size() == 2);
-        Assert.assertTrue(filtered.get(1).getFlights().size() == 2);
-        Assert.assertTrue(filtered.get(1).getFlights().get(0).getDepartureTime().equals(flight1.getDepartureTime()));
+        Assert.assertTrue(filtered.getDepartureDateTime(0).equals(LocalDateTime.of(2019, 1, 15, 14, 0)));
+        Assert.assertTrue(filtered.getDepartureDateTime(1).equals(LocalDateTime.of(2019, 1, 15, 14, 0)));
+    }
+
+    /**
+     * filterNonValid should not modify the cached MonthSchedule.
+     */
+    @Test
+    public void filterNonValidDoesNotModifySchedule() {
+        scheduleService.filterNonValid(scheduleDep, jan2019, aug2019);
+
+        Assert.assertTrue(scheduleDep.size() == 12);
+        Assert.assertTrue(scheduleDep.view().getDepartureDateTime(0).getDayOfMonth() == 1);
     }
 
     /**
@@ -132,7 +179,7 @@ public class ScheduleServiceTests {
      */
     @Test
     public void getSchedulesForSeveralYearsWholeYear() throws Exception {
-        List<Schedule> result = scheduleService.getSchedulesForSeveralYears("EZE", "MDQ", jan2019, dec2020);
+        List<MonthSchedule> result = scheduleService.getSchedulesForSeveralYears("EZE", "MDQ", jan2019, dec2020);
 
         Assert.assertTrue(result.size() == 24);
         Assert.assertTrue(result.get(0).getMonth() == 1);
@@ -145,7 +192,7 @@ public class ScheduleServiceTests {
      */
     @Test
     public void getSchedulesForSeveralYearsPartialYears() throws Exception {
-        List<Schedule> result = scheduleService.getSchedulesForSeveralYears("EZE", "MDQ", aug2019, dec2020);
+        List<MonthSchedule> result = scheduleService.getSchedulesForSeveralYears("EZE", "MDQ", aug2019, dec2020);
 
         Assert.assertTrue(result.size() == 17);
         Assert.assertTrue(result.get(0).getMonth() == 8);
@@ -160,12 +207,44 @@ public class ScheduleServiceTests {
         scheduleService.getSchedulesForSeveralYears("EZE", "MDQ", dec2020, jan2019);
     }
 
+    /**
+     * getSchedulesForSeveralYears should request the months of every year before waiting for any of them.
+     */
+    @Test(timeout = 5000)
+    public void getSchedulesForSeveralYearsRequestsEveryYearAtOnce() throws Exception {
+        CompletableFuture<Optional<MonthSchedule>> december = new CompletableFuture<>();
+        given(scheduleClient.getScheduleAsync("EZE", "MDQ", 2019, 12)).willReturn(december);
+        given(scheduleClient.getScheduleAsync("EZE", "MDQ", 2020, 1)).willAnswer(invocation -> {
+            december.complete(Optional.of(MonthSchedule.of(2019, 12, new Schedule(12, days))));
+            return CompletableFuture.completedFuture(Optional.of(MonthSchedule.of(2020, 1, new Schedule(1, days))));
+        });
+
+        List<MonthSchedule> result = scheduleService.getSchedulesForSeveralYears("EZE", "MDQ", dec2019,
+                LocalDateTime.of(2020, 1, 15, 12, 0));
+
+        Assert.assertTrue(result.size() == 2);
+        Assert.assertTrue(result.get(0).getYear() == 2019 && result.get(0).getMonth() == 12);
+        Assert.assertTrue(result.get(1).getYear() == 2020 && result.get(1).getMonth() == 1);
+    }
+
+    /**
+     * getMonths should include both edges, crossing the year boundary.
+     */
+    @Test
+    public void getMonthsAcrossYears() {
+        List<YearMonth> result = scheduleService.getMonths(dec2019, LocalDateTime.of(2020, 2, 1, 0, 0));
+
+        Assert.assertTrue(result.size() == 3);
+        Assert.assertTrue(result.get(0).equals(YearMonth.of(2019, 12)));
+        Assert.assertTrue(result.get(2).equals(YearMonth.of(2020, 2)));
+    }
+
     /**
      * getSchedulesForSameYear for a date range of one year should return 12 items.
      */
     @Test
     public void getSchedulesForSameYearWholeYear() throws Exception {
-        List<Schedule> result = scheduleService.getSchedulesForSameYear("EZE", "MDQ", jan2019, dec2019);
+        List<MonthSchedule> result = scheduleService.getSchedulesForSameYear("EZE", "MDQ", jan2019, dec2019);
 
         Assert.assertTrue(result.size() == 12);
         Assert.assertTrue(result.get(0).getMonth() == 1);
@@ -177,13 +256,28 @@ public class ScheduleServiceTests {
      */
     @Test
     public void getSchedulesForSameYearPartialYear() throws Exception {
-        List<Schedule> result = scheduleService.getSchedulesForSameYear("EZE", "MDQ", jan2019, aug2019);
+        List<MonthSchedule> result = scheduleService.getSchedulesForSameYear("EZE", "MDQ", jan2019, aug2019);
 
         Assert.assertTrue(result.size() == 8);
         Assert.assertTrue(result.get(0).getMonth() == 1);
         Assert.assertTrue(result.get(7).getMonth() == 8);
     }
 
+    /**
+     * getSchedulesForSameYear should skip months that fail to be fetched.
+     */
+    @Test
+    public void getSchedulesForSameYearSkipsFailedMonths() throws Exception {
+        CompletableFuture<Optional<MonthSchedule>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RestClientException("", null, HttpStatus.INTERNAL_SERVER_ERROR));
+        given(scheduleClient.getScheduleAsync("EZE", "MDQ", 2019, 2)).willReturn(failed);
+
+        List<MonthSchedule> result = scheduleService.getSchedulesForSameYear("EZE", "MDQ", jan2019, aug2019);
+
+        Assert.assertTrue(result.size() == 7);
+        Assert.assertTrue(result.get(1).getMonth() == 3);
+    }
+
     /**
      * getSchedulesForSameYear for non valid dates should throw a ValidationException.
      */
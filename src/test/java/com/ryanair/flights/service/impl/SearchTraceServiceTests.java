@@ -0,0 +1,76 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.configuration.TraceProperties;
+import com.ryanair.flights.model.SearchTrace;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+
+public class SearchTraceServiceTests {
+
+    private SearchTraceService searchTraceService(Duration slowThreshold, int capacity) {
+        TraceProperties properties = new TraceProperties();
+        properties.setSlowThreshold(slowThreshold);
+        properties.setCapacity(capacity);
+        return new SearchTraceService(properties);
+    }
+
+    /**
+     * Should keep only the searches slower than the threshold.
+     */
+    @Test
+    public void recordSkipsFastSearches() {
+        SearchTraceService searchTraceService = searchTraceService(Duration.ofMinutes(1), 2);
+        SearchTrace trace = new SearchTrace("EZE", "MDQ", null, null);
+        trace.finish();
+
+        Assert.assertFalse(searchTraceService.record(trace));
+        Assert.assertTrue(searchTraceService.getSlowSearches().isEmpty());
+    }
+
+    /**
+     * Should drop the oldest search once full, and list the kept ones slowest first.
+     */
+    @Test
+    public void recordDropsOldestWhenFull() throws Exception {
+        SearchTraceService searchTraceService = searchTraceService(Duration.ZERO, 2);
+        SearchTrace oldest = new SearchTrace("EZE", "MDQ", null, null);
+        SearchTrace slowest = new SearchTrace("EZE", "RIO", null, null);
+        Thread.sleep(5);
+        SearchTrace newest = new SearchTrace("RIO", "MDQ", null, null);
+        oldest.finish();
+        slowest.finish();
+        newest.finish();
+
+        Assert.assertTrue(searchTraceService.record(oldest));
+        Assert.assertTrue(searchTraceService.record(newest));
+        Assert.assertTrue(searchTraceService.record(slowest));
+
+        List<SearchTrace> slowSearches = searchTraceService.getSlowSearches();
+        Assert.assertTrue(slowSearches.size() == 2);
+        Assert.assertTrue(slowSearches.get(0) == slowest);
+        Assert.assertTrue(slowSearches.get(1) == newest);
+    }
+
+    /**
+     * Should add up the time of a stage run several times, and list calls slowest first.
+     */
+    @Test
+    public void traceAddsUpStages() {
+        SearchTrace trace = new SearchTrace("EZE", "MDQ", null, null);
+        trace.stageNanos("fetch", 1_000_000);
+        trace.stageNanos("join", 500_000);
+        trace.stageNanos("fetch", 2_000_000);
+        trace.call("schedule", "EZE", "MDQ", YearMonth.of(2019, 1), "found", System.nanoTime());
+        trace.call("schedule", "EZE", "MDQ", YearMonth.of(2019, 2), "found", System.nanoTime() - 30_000_000);
+
+        Assert.assertTrue(trace.getStages().size() == 2);
+        Assert.assertTrue(trace.getStages().get(0).getMillis() == 3.0);
+        Assert.assertTrue(trace.getCalls().get(0).getDescription().equals("EZE-MDQ 2019-02 found"));
+        Assert.assertTrue(trace.toServerTiming(1).startsWith("fetch;dur=3.0, join;dur=0.5, "
+                + "schedule;desc=\"EZE-MDQ 2019-02 found\";dur="));
+    }
+}
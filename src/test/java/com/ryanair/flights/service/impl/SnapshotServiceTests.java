@@ -0,0 +1,148 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.client.ScheduleClient;
+import com.ryanair.flights.configuration.SnapshotProperties;
+import com.ryanair.flights.exception.RestClientException;
+import com.ryanair.flights.model.*;
+import com.ryanair.flights.service.RouteServiceI;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@RunWith(SpringRunner.class)
+public class SnapshotServiceTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    RouteServiceI routeService;
+
+    @Mock
+    ScheduleClient scheduleClient;
+
+    private Cache cache;
+    private File file;
+    private SnapshotProperties properties;
+    private SnapshotService snapshotService;
+
+    ScheduleKey key = new ScheduleKey("EZE", "MDQ", 2019, 1);
+    ScheduleKey missingKey = new ScheduleKey("EZE", "RIO", 2019, 1);
+    MonthSchedule schedule = MonthSchedule.of(2019, 1, new int[]{20, 10}, new int[]{80, 70}, new int[]{2, 1});
+    Route route = new Route("EZE", "MDQ", null, false, null, "RYANAIR", "GENERIC");
+
+    @Before
+    public void beforeEachTest() throws Exception {
+        file = new File(folder.getRoot(), "snapshot.bin");
+        properties = new SnapshotProperties();
+        properties.setPath(file.getPath());
+        properties.setRevalidate(false);
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCacheNames(Collections.singletonList("schedule"));
+        cache = cacheManager.getCache("schedule");
+        snapshotService = new SnapshotService(cacheManager, routeService, scheduleClient, properties);
+    }
+
+    /**
+     * Should restore the routes, the schedules and the schedules known not to exist that were saved.
+     */
+    @Test
+    public void saveAndRestore() {
+        cache.put(key, schedule);
+        cache.put(missingKey, null);
+        given(routeService.getCurrentRouteGraph())
+                .willReturn(Optional.of(RouteGraph.of(Collections.singletonList(route))));
+
+        Assert.assertTrue(snapshotService.save());
+        cache.clear();
+
+        Assert.assertTrue(snapshotService.restore() == 2);
+        MonthSchedule restored = (MonthSchedule) cache.get(key).get();
+        Assert.assertTrue(restored.size() == 2);
+        Assert.assertTrue(restored.getDeparture(0) == 10 && restored.getArrival(0) == 70);
+        Assert.assertTrue(restored.getNumber(1) == 2);
+        Assert.assertTrue(null != cache.get(missingKey) && null == cache.get(missingKey).get());
+
+        ArgumentCaptor<RouteGraph> routeGraph = ArgumentCaptor.forClass(RouteGraph.class);
+        then(routeService).should().restoreRouteGraph(routeGraph.capture());
+        Assert.assertTrue(routeGraph.getValue().getRoutes().equals(Collections.singletonList(route)));
+    }
+
+    /**
+     * Should start cold when there is no snapshot file.
+     */
+    @Test
+    public void restoreNoSnapshot() {
+        Assert.assertTrue(snapshotService.restore() == 0);
+        then(routeService).should(never()).restoreRouteGraph(any());
+    }
+
+    /**
+     * Should start cold when the snapshot file is not valid.
+     */
+    @Test
+    public void restoreInvalidSnapshot() throws Exception {
+        Files.write(file.toPath(), new byte[]{1, 2, 3});
+
+        Assert.assertTrue(snapshotService.restore() == 0);
+        Assert.assertTrue(null == cache.get(key));
+    }
+
+    /**
+     * Should start cold when the snapshot was saved longer than max-age ago.
+     */
+    @Test
+    public void restoreStaleSnapshot() throws Exception {
+        new ScheduleSnapshot(System.currentTimeMillis() - Duration.ofDays(2).toMillis(),
+                Collections.singletonList(route), Collections.singletonMap(key, schedule)).write(file.toPath());
+
+        Assert.assertTrue(snapshotService.restore() == 0);
+        Assert.assertTrue(null == cache.get(key));
+        then(routeService).should(never()).restoreRouteGraph(any());
+
+        properties.setMaxAge(Duration.ofDays(3));
+        Assert.assertTrue(snapshotService.restore() == 1);
+        Assert.assertTrue(null != cache.get(key));
+    }
+
+    /**
+     * Should fetch again the restored schedules still cached, and keep a restored one when fetching it fails.
+     */
+    @Test
+    public void revalidate() throws Exception {
+        MonthSchedule fresh = MonthSchedule.empty(2019, 1);
+        cache.put(key, schedule);
+        cache.put(missingKey, null);
+        given(scheduleClient.getSchedule("EZE", "MDQ", 2019, 1)).willReturn(Optional.of(fresh));
+        given(scheduleClient.getSchedule("EZE", "RIO", 2019, 1))
+                .willThrow(new RestClientException("Error", null, HttpStatus.BAD_GATEWAY));
+
+        Assert.assertTrue(snapshotService.revalidate(Arrays.asList(key, missingKey,
+                new ScheduleKey("EZE", "JFK", 2019, 1))) == 1);
+        Assert.assertTrue(cache.get(key).get() == fresh);
+        Assert.assertTrue(null != cache.get(missingKey));
+        then(routeService).should().refreshRouteGraph();
+    }
+}
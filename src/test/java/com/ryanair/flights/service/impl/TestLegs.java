@@ -0,0 +1,25 @@
+package com.ryanair.flights.service.impl;
+
+import com.ryanair.flights.model.AirportIds;
+import com.ryanair.flights.model.EpochMinutes;
+import com.ryanair.flights.model.Leg;
+
+import java.util.Collection;
+
+/**
+ * Builds the LegIndex of a search from Legs, as the tests describe their timetables with them.
+ */
+final class TestLegs {
+
+    private TestLegs() {
+    }
+
+    static LegIndex index(Collection<Leg> legs) {
+        LegIndex.Builder builder = LegIndex.builder();
+        for (Leg leg : legs) {
+            builder.add(AirportIds.of(leg.getDepartureAirport()), AirportIds.of(leg.getArrivalAirport()),
+                    EpochMinutes.of(leg.getDepartureDateTime()), EpochMinutes.of(leg.getArrivalDateTime()));
+        }
+        return builder.build();
+    }
+}
@@ -1,18 +1,19 @@
 package com.ryanair.flights.validation;
 
+import com.ryanair.flights.configuration.SearchProperties;
 import com.ryanair.flights.exception.ValidationException;
+import com.ryanair.flights.model.SearchOptions;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 @RunWith(SpringRunner.class)
 public class FlightServiceValidationTests {
 
-    @InjectMocks
-    private FlightServiceValidation flightServiceValidation;
+    private FlightServiceValidation flightServiceValidation = new FlightServiceValidation(new SearchProperties());
 
     LocalDateTime departure = LocalDateTime.of(2019, 7, 1, 7, 0);
     LocalDateTime arrival = LocalDateTime.of(2019, 12, 3, 21, 0);
@@ -36,4 +37,83 @@ public class FlightServiceValidationTests {
     public void parseNonValidDates() throws Exception {
         flightServiceValidation.validateInterconnectionsParameters("EZE", "GLH", arrival, departure);
     }
+
+    @Test
+    public void validSearchOptions() throws Exception {
+        flightServiceValidation.validateSearchOptions(new SearchOptions(20, 0, SearchOptions.Sort.DEPARTURE));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void nonPositiveLimit() throws Exception {
+        flightServiceValidation.validateSearchOptions(new SearchOptions(0, 0, null));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void negativeOffset() throws Exception {
+        flightServiceValidation.validateSearchOptions(new SearchOptions(20, -1, null));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void maxLayoverShorterThanMinLayover() throws Exception {
+        flightServiceValidation.validateSearchOptions(new SearchOptions(null, 0, null, Duration.ofHours(3),
+                Duration.ofHours(1), null, null));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void nonPositiveMaxTripDuration() throws Exception {
+        flightServiceValidation.validateSearchOptions(new SearchOptions(null, 0, null, null, null, Duration.ZERO,
+                null));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void maxStopsOverLimit() throws Exception {
+        flightServiceValidation.validateSearchOptions(new SearchOptions(null, 0, null, null, null, null, 4));
+    }
+
+    @Test
+    public void batchSizeWithinLimit() throws Exception {
+        flightServiceValidation.validateBatchSize(500);
+    }
+
+    @Test(expected = ValidationException.class)
+    public void emptyBatch() throws Exception {
+        flightServiceValidation.validateBatchSize(0);
+    }
+
+    @Test(expected = ValidationException.class)
+    public void batchSizeOverLimit() throws Exception {
+        flightServiceValidation.validateBatchSize(501);
+    }
+
+    @Test
+    public void parseValidDestinationsParameters() throws Exception {
+        flightServiceValidation.validateDestinationsParameters("EZE", departure, arrival);
+    }
+
+    @Test(expected = ValidationException.class)
+    public void parseNonValidDestinationsDates() throws Exception {
+        flightServiceValidation.validateDestinationsParameters("EZE", arrival, departure);
+    }
+
+    @Test(expected = ValidationException.class)
+    public void negativeMaxLayover() throws Exception {
+        flightServiceValidation.validateSearchOptions(new SearchOptions(null, 0, null, null, Duration.ofHours(-1),
+                null, null));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void maxLayoverShorterThanDefaultMinLayover() throws Exception {
+        flightServiceValidation.validateSearchOptions(new SearchOptions(null, 0, null, null, Duration.ofHours(1),
+                null, null));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void destinationStopsAboveLimit() throws Exception {
+        flightServiceValidation.validateDestinationStops(2);
+    }
+
+    @Test(expected = ValidationException.class)
+    public void destinationPairsAboveLimit() throws Exception {
+        flightServiceValidation.validateDestinationPairs(2001);
+    }
 }